@@ -0,0 +1,119 @@
+package benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Random;
+
+import bruteForceApproach.ModoDeBusca;
+import bruteForceApproach.TSPBruteForce;
+import common.Coordinates;
+import common.DistanceMatrix;
+import common.DistanceOracle;
+
+// Reports how many bytes the exact search allocates on the calling thread,
+// next to a copy of the backtracking that kept the path in linked nodes.
+// java benchmarks.BruteForceAllocationBenchmark 10 11 12
+public class BruteForceAllocationBenchmark {
+    public static void main(String[] args) throws Exception {
+        var sizes = args.length == 0 ? new String[] { "10", "11", "12" } : args;
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        var threadId = Thread.currentThread().getId();
+
+        System.out.printf("%-4s %-20s %12s %16s %14s %10s%n", "n", "mode", "time (ms)", "allocated (MB)", "rate (MB/s)",
+                "cost");
+
+        for (var size : sizes) {
+            var distanceMatrix = randomDistanceMatrix(Integer.parseInt(size));
+            var baseline = new LinkedPathBacktracking(distanceMatrix);
+            var baselineAllocatedBefore = threads.getThreadAllocatedBytes(threadId);
+            var baselineStart = System.nanoTime();
+            var baselineCost = baseline.getCustoMinimo();
+            var baselineElapsed = System.nanoTime() - baselineStart;
+            var baselineAllocated = threads.getThreadAllocatedBytes(threadId) - baselineAllocatedBefore;
+
+            System.out.printf("%-4s %-20s %12.1f %16.2f %14.1f %10d%n", size, "BACKTRACKING_LINKED",
+                    baselineElapsed / 1e6, baselineAllocated / 1048576.0,
+                    baselineAllocated / 1048576.0 / (baselineElapsed / 1e9), baselineCost);
+
+            for (var modo : ModoDeBusca.values()) {
+                // the parallel mode allocates on pool threads, which are not counted here
+                if (modo == ModoDeBusca.PARALELO) {
+                    continue;
+                }
+
+                var bruteForce = new TSPBruteForce(distanceMatrix, modo);
+                var allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+                var start = System.nanoTime();
+                var cost = bruteForce.getCustoMinimo();
+                var elapsed = System.nanoTime() - start;
+                var allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+                System.out.printf("%-4s %-20s %12.1f %16.2f %14.1f %10d%n", size, modo, elapsed / 1e6,
+                        allocated / 1048576.0, allocated / 1048576.0 / (elapsed / 1e9), cost);
+            }
+        }
+    }
+
+    // The backtracking as it was before the path stack: one node per step,
+    // pointing back to the previous city
+    private static class LinkedPathBacktracking {
+        private final DistanceOracle distanceMatrix;
+        private final int numberOfCities;
+        private final boolean[] visited;
+        private int minimumCost;
+
+        LinkedPathBacktracking(DistanceOracle distanceMatrix) {
+            this.distanceMatrix = distanceMatrix;
+            this.numberOfCities = distanceMatrix.getNumberOfCities();
+            this.visited = new boolean[numberOfCities];
+            this.minimumCost = Integer.MAX_VALUE;
+
+            visited[0] = true;
+        }
+
+        int getCustoMinimo() {
+            backTracking(new Node(0, null, 0), 1);
+
+            return minimumCost;
+        }
+
+        private void backTracking(Node current, int numberOfVisited) {
+            if (numberOfVisited == numberOfCities && distanceMatrix.getDistance(current.id, 0) > 0) {
+                minimumCost = Math.min(minimumCost, current.cost + distanceMatrix.getDistance(current.id, 0));
+                return;
+            }
+
+            for (int i = 0; i < numberOfCities; i++) {
+                if (!visited[i] && distanceMatrix.getDistance(current.id, i) > 0) {
+                    visited[i] = true;
+                    backTracking(new Node(i, current, current.cost + distanceMatrix.getDistance(current.id, i)),
+                            numberOfVisited + 1);
+                    visited[i] = false;
+                }
+            }
+        }
+    }
+
+    private static class Node {
+        final int id;
+        final Node previous;
+        final int cost;
+
+        Node(int id, Node previous, int cost) {
+            this.id = id;
+            this.previous = previous;
+            this.cost = cost;
+        }
+    }
+
+    private static DistanceMatrix randomDistanceMatrix(int numberOfCities) throws Exception {
+        var random = new Random(42);
+        var coordinates = new ArrayList<Coordinates>(numberOfCities);
+
+        for (int i = 0; i < numberOfCities; i++) {
+            coordinates.add(new Coordinates(random.nextInt(1000), random.nextInt(1000)));
+        }
+
+        return new DistanceMatrix(coordinates);
+    }
+}
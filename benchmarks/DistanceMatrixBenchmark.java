@@ -0,0 +1,72 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import common.Coordinates;
+import common.DistanceMatrix;
+import common.SymmetricDistanceMatrix;
+
+// Run with a heap large enough for the full matrix, e.g.:
+// java -Xmx3g benchmarks.DistanceMatrixBenchmark 1000 5000 20000
+public class DistanceMatrixBenchmark {
+    private static final int REPETITIONS = 3;
+
+    // keeps the instance reachable until its footprint has been measured
+    private static Object lastBuilt;
+
+    public static void main(String[] args) throws Exception {
+        var sizes = args.length == 0 ? new String[] { "1000", "5000", "20000" } : args;
+
+        System.out.println("processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-8s %-24s %14s %14s%n", "n", "storage", "build (ms)", "footprint (MB)");
+
+        for (var size : sizes) {
+            var coordinates = randomCoordinates(Integer.parseInt(size));
+
+            measure(coordinates.size(), "DistanceMatrix", () -> new DistanceMatrix(coordinates));
+            measure(coordinates.size(), "SymmetricDistanceMatrix", () -> new SymmetricDistanceMatrix(coordinates));
+        }
+    }
+
+    private static List<Coordinates> randomCoordinates(int numberOfCities) throws Exception {
+        var random = new Random(42);
+        var coordinates = new ArrayList<Coordinates>(numberOfCities);
+
+        for (int i = 0; i < numberOfCities; i++) {
+            coordinates.add(new Coordinates(random.nextInt(100_000), random.nextInt(100_000)));
+        }
+
+        return coordinates;
+    }
+
+    private static void measure(int numberOfCities, String name, Supplier<Object> builder) {
+        var bestTime = Long.MAX_VALUE;
+        var footprint = 0L;
+
+        for (int i = 0; i < REPETITIONS; i++) {
+            var before = usedMemory();
+            var start = System.nanoTime();
+            lastBuilt = builder.get();
+            var elapsed = System.nanoTime() - start;
+
+            footprint = usedMemory() - before;
+            bestTime = Math.min(bestTime, elapsed);
+            lastBuilt = null;
+        }
+
+        System.out.printf("%-8d %-24s %14.1f %14.1f%n", numberOfCities, name, bestTime / 1e6, footprint / 1048576.0);
+    }
+
+    private static long usedMemory() {
+        var runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
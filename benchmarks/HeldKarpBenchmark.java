@@ -0,0 +1,159 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import common.Coordinates;
+import common.DistanceMatrix;
+import common.DistanceOracle;
+import dynamicProgrammingApproach.DynamicProgrammingApproach;
+import dynamicProgrammingApproach.HeldKarpOptions;
+
+// java -Xmx3g benchmarks.HeldKarpBenchmark 16 18 20
+public class HeldKarpBenchmark {
+    public static void main(String[] args) throws Exception {
+        var sizes = args.length == 0 ? new String[] { "16", "18", "20" } : args;
+
+        System.out.println("processors: " + Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-4s %-10s %12s %10s%n", "n", "mode", "time (ms)", "cost");
+
+        for (var size : sizes) {
+            var distanceMatrix = randomDistanceMatrix(Integer.parseInt(size));
+
+            new ListSubsetHeldKarp(randomDistanceMatrix(12)).getTourCost();
+
+            var baseline = new ListSubsetHeldKarp(distanceMatrix);
+            var baselineStart = System.nanoTime();
+            var baselineCost = baseline.getTourCost();
+            var baselineElapsed = System.nanoTime() - baselineStart;
+
+            System.out.printf("%-4s %-10s %12.1f %10d%n", size, "list-table", baselineElapsed / 1e6, baselineCost);
+
+            for (var isParallel : new boolean[] { false, true }) {
+                var options = new HeldKarpOptions().withParallelLayers(isParallel);
+
+                // a smaller warm-up run so the timed one is compiled code
+                new DynamicProgrammingApproach(randomDistanceMatrix(12), options).getTourCost();
+
+                var dynamicProgramming = new DynamicProgrammingApproach(distanceMatrix, options);
+                var start = System.nanoTime();
+                var cost = dynamicProgramming.getTourCost();
+                var elapsed = System.nanoTime() - start;
+
+                System.out.printf("%-4s %-10s %12.1f %10d%n", size, isParallel ? "parallel" : "sequential",
+                        elapsed / 1e6, cost);
+                printLayerTimes(dynamicProgramming.getLayerTimesInNanos());
+            }
+        }
+    }
+
+    private static void printLayerTimes(long[] layerTimesInNanos) {
+        var line = new StringBuilder("     layers (ms):");
+
+        for (int subsetSize = 2; subsetSize < layerTimesInNanos.length; subsetSize++) {
+            line.append(String.format(" %d=%.1f", subsetSize, layerTimesInNanos[subsetSize] / 1e6));
+        }
+
+        System.out.println(line);
+    }
+
+    // The Held-Karp as it was before the flat table: an n x 2^n int table
+    // indexed by [end][subset], subsets collected into a List<Integer> for
+    // each size and every bit test going through Math.pow
+    private static class ListSubsetHeldKarp {
+        private final DistanceOracle distanceMatrix;
+        private final int numberOfCities;
+        private final int[][] memoryTable;
+
+        ListSubsetHeldKarp(DistanceOracle distanceMatrix) {
+            this.distanceMatrix = distanceMatrix;
+            this.numberOfCities = distanceMatrix.getNumberOfCities();
+            this.memoryTable = new int[numberOfCities][twoPower(numberOfCities)];
+        }
+
+        int getTourCost() {
+            for (int end = 1; end < numberOfCities; end++) {
+                memoryTable[end][1 | twoPower(end)] = distanceMatrix.getDistance(0, end);
+            }
+
+            for (int subsetSize = 3; subsetSize <= numberOfCities; subsetSize++) {
+                for (int subset : getAllCombinations(subsetSize)) {
+                    if (notIn(0, subset)) {
+                        continue;
+                    }
+
+                    for (int next = 1; next < numberOfCities; next++) {
+                        if (notIn(next, subset)) {
+                            continue;
+                        }
+
+                        var subsetWithoutNext = subset ^ twoPower(next);
+                        var minimumDistance = Integer.MAX_VALUE;
+
+                        for (int end = 1; end < numberOfCities; end++) {
+                            if (end == next || notIn(end, subset)) {
+                                continue;
+                            }
+
+                            minimumDistance = Math.min(minimumDistance,
+                                    memoryTable[end][subsetWithoutNext] + distanceMatrix.getDistance(end, next));
+                        }
+
+                        memoryTable[next][subset] = minimumDistance;
+                    }
+                }
+            }
+
+            var endState = twoPower(numberOfCities) - 1;
+            var minimumTourCost = Integer.MAX_VALUE;
+
+            for (int end = 1; end < numberOfCities; end++) {
+                minimumTourCost = Math.min(minimumTourCost,
+                        memoryTable[end][endState] + distanceMatrix.getDistance(end, 0));
+            }
+
+            return minimumTourCost;
+        }
+
+        private List<Integer> getAllCombinations(int subsetSize) {
+            var subsets = new ArrayList<Integer>();
+            getAllCombinationsRecursively(0, subsetSize, 0, subsets);
+            return subsets;
+        }
+
+        private void getAllCombinationsRecursively(int start, int size, int subset, List<Integer> subsets) {
+            if (numberOfCities - start < size) {
+                return;
+            }
+
+            if (size == 0) {
+                subsets.add(subset);
+                return;
+            }
+
+            for (int i = start; i < numberOfCities; i++) {
+                getAllCombinationsRecursively(i + 1, size - 1, subset ^ twoPower(i), subsets);
+            }
+        }
+
+        private static boolean notIn(int element, int subset) {
+            return (twoPower(element) & subset) == 0;
+        }
+
+        private static int twoPower(int n) {
+            return (int) Math.pow(2, n);
+        }
+    }
+
+    private static DistanceMatrix randomDistanceMatrix(int numberOfCities) throws Exception {
+        var random = new Random(42);
+        var coordinates = new ArrayList<Coordinates>(numberOfCities);
+
+        for (int i = 0; i < numberOfCities; i++) {
+            coordinates.add(new Coordinates(random.nextInt(1000), random.nextInt(1000)));
+        }
+
+        return new DistanceMatrix(coordinates);
+    }
+}
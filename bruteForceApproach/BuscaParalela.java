@@ -0,0 +1,126 @@
+package bruteForceApproach;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveTask;
+
+import common.DistanceOracle;
+
+// Branch and bound subtree rooted at a fixed prefix of the tour. The first
+// NIVEIS_DIVIDIDOS levels below the root are split into subtasks, deeper
+// levels are searched sequentially by the task that owns the prefix
+class BuscaParalela extends RecursiveTask<Integer> {
+    private static final long serialVersionUID = 1L;
+
+    static final int NIVEIS_DIVIDIDOS = 2;
+
+    private final DistanceOracle grafoDeDistancia;
+    private final LimitantesDeBusca limitantes;
+    private final Incumbente incumbente;
+    private final int[] caminho;
+    private final int profundidade;
+    private final long naoVisitados;
+    private final int custo;
+    private final int somaMenorSaida;
+
+    private int[] chavesDaArvore;
+    private int[] cidadesDaArvore;
+
+    // Task for the whole tree, with only the root in the path
+    BuscaParalela(DistanceOracle grafo, LimitantesDeBusca limitantes, Incumbente incumbente) {
+        this(grafo, limitantes, incumbente, new int[limitantes.getCidades()], 1,
+                LimitantesDeBusca.todasMenosARaiz(limitantes.getCidades()), 0, limitantes.getSomaMenorSaida());
+    }
+
+    private BuscaParalela(DistanceOracle grafo, LimitantesDeBusca limitantes, Incumbente incumbente,
+            int[] caminho, int profundidade, long naoVisitados, int custo, int somaMenorSaida) {
+        this.grafoDeDistancia = grafo;
+        this.limitantes = limitantes;
+        this.incumbente = incumbente;
+        this.caminho = caminho;
+        this.profundidade = profundidade;
+        this.naoVisitados = naoVisitados;
+        this.custo = custo;
+        this.somaMenorSaida = somaMenorSaida;
+    }
+
+    @Override
+    protected Integer compute() {
+        chavesDaArvore = new int[caminho.length];
+        cidadesDaArvore = new int[caminho.length];
+
+        if (profundidade > NIVEIS_DIVIDIDOS || naoVisitados == 0) {
+            return buscar(profundidade, naoVisitados, custo, somaMenorSaida);
+        }
+
+        var atual = caminho[profundidade - 1];
+        var restante = Math.max(somaMenorSaida, limitantes.custoDaArvore(naoVisitados, chavesDaArvore, cidadesDaArvore));
+        var subtarefas = new ArrayList<BuscaParalela>();
+
+        for (var proxima : limitantes.getVizinhosOrdenados(atual)) {
+            if ((naoVisitados & (1L << proxima)) == 0) {
+                continue;
+            }
+
+            var novoCusto = custo + grafoDeDistancia.getDistance(atual, proxima);
+
+            if (novoCusto + restante >= incumbente.getCusto()) {
+                break;
+            }
+
+            var novoCaminho = Arrays.copyOf(caminho, caminho.length);
+            novoCaminho[profundidade] = proxima;
+
+            subtarefas.add(new BuscaParalela(grafoDeDistancia, limitantes, incumbente, novoCaminho, profundidade + 1,
+                    naoVisitados & ~(1L << proxima), novoCusto, somaMenorSaida - limitantes.getMenorSaida(proxima)));
+        }
+
+        var melhor = Integer.MAX_VALUE;
+
+        for (var subtarefa : invokeAll(subtarefas)) {
+            melhor = Math.min(melhor, subtarefa.join());
+        }
+
+        return melhor;
+    }
+
+    // Sequential branch and bound below the split levels. The path lives in
+    // this task's own array and the visited set in a bitmask passed by value,
+    // only the incumbent is shared
+    private int buscar(int tamanho, long restantes, int custoAtual, int soma) {
+        var atual = caminho[tamanho - 1];
+
+        if (restantes == 0) {
+            var retorno = grafoDeDistancia.getDistance(atual, 0);
+
+            if (retorno > 0 && custoAtual + retorno < incumbente.getCusto()) {
+                incumbente.tentarAtualizar(custoAtual + retorno, caminho, tamanho);
+                return custoAtual + retorno;
+            }
+
+            return Integer.MAX_VALUE;
+        }
+
+        var restante = Math.max(soma, limitantes.custoDaArvore(restantes, chavesDaArvore, cidadesDaArvore));
+        var melhor = Integer.MAX_VALUE;
+
+        for (var proxima : limitantes.getVizinhosOrdenados(atual)) {
+            if ((restantes & (1L << proxima)) == 0) {
+                continue;
+            }
+
+            var novoCusto = custoAtual + grafoDeDistancia.getDistance(atual, proxima);
+
+            if (novoCusto + restante >= incumbente.getCusto()) {
+                break;
+            }
+
+            caminho[tamanho] = proxima;
+
+            melhor = Math.min(melhor, buscar(tamanho + 1, restantes & ~(1L << proxima), novoCusto,
+                    soma - limitantes.getMenorSaida(proxima)));
+        }
+
+        return melhor;
+    }
+}
@@ -0,0 +1,121 @@
+package bruteForceApproach;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import common.DistanceOracle;
+
+// Binary checkpoint of a sequential branch and bound: the incumbent and the
+// path of the node the search was about to expand. Neighbours are always
+// tried in the same sorted order, so that path alone describes the frontier:
+// every sibling before it on each level was already explored and every one
+// after it is still open
+class CheckpointDaBusca {
+    private static final int MAGIC = 0x54535042;
+    private static final int VERSAO = 1;
+
+    private final Path arquivo;
+    private final int cidades;
+    private final int impressaoDigital;
+
+    private int custo;
+    private int[] melhorCaminho;
+    private int[] caminho;
+
+    CheckpointDaBusca(Path arquivo, DistanceOracle grafo) {
+        this.arquivo = arquivo;
+        this.cidades = grafo.getNumberOfCities();
+        this.impressaoDigital = impressaoDigitalDe(grafo);
+    }
+
+    // Identifies the instance, so a checkpoint is never resumed on other distances
+    private static int impressaoDigitalDe(DistanceOracle grafo) {
+        var hash = 1;
+
+        for (int i = 0; i < grafo.getNumberOfCities(); i++) {
+            for (int j = 0; j < grafo.getNumberOfCities(); j++) {
+                hash = 31 * hash + grafo.getDistance(i, j);
+            }
+        }
+
+        return hash;
+    }
+
+    // Written to a temporary file first and then moved over the old one, so a
+    // crash in the middle of a write leaves the previous checkpoint intact
+    void salvar(int custoMinimo, int[] melhor, int[] atual, int tamanho) throws IOException {
+        var temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+
+        try (var stream = new FileOutputStream(temporario.toFile());
+                var output = new DataOutputStream(new BufferedOutputStream(stream))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSAO);
+            output.writeInt(cidades);
+            output.writeInt(impressaoDigital);
+            output.writeInt(custoMinimo);
+
+            for (int i = 0; i < cidades; i++) {
+                output.writeByte(melhor[i]);
+            }
+
+            output.writeByte(tamanho);
+
+            for (int i = 0; i < tamanho; i++) {
+                output.writeByte(atual[i]);
+            }
+
+            output.flush();
+            stream.getFD().sync();
+        }
+
+        Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    void carregar() throws IOException {
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSAO) {
+                throw new IllegalStateException("The file " + arquivo + " is not a branch and bound checkpoint");
+            }
+
+            if (input.readInt() != cidades || input.readInt() != impressaoDigital) {
+                throw new IllegalStateException("The checkpoint " + arquivo + " was written for another instance");
+            }
+
+            custo = input.readInt();
+            melhorCaminho = new int[cidades];
+
+            for (int i = 0; i < cidades; i++) {
+                melhorCaminho[i] = input.readUnsignedByte();
+            }
+
+            caminho = new int[input.readUnsignedByte()];
+
+            for (int i = 0; i < caminho.length; i++) {
+                caminho[i] = input.readUnsignedByte();
+            }
+        }
+    }
+
+    int getCusto() {
+        return custo;
+    }
+
+    int[] getMelhorCaminho() {
+        return melhorCaminho;
+    }
+
+    int[] getCaminho() {
+        return caminho;
+    }
+
+    void apagar() throws IOException {
+        Files.deleteIfExists(arquivo);
+    }
+}
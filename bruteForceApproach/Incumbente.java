@@ -0,0 +1,35 @@
+package bruteForceApproach;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Best tour found so far, shared by concurrent searches. The cost is read
+// without locking on every pruning test, the tour only changes under the lock
+class Incumbente {
+    private final AtomicInteger custo;
+    private int[] caminho;
+
+    Incumbente() {
+        this.custo = new AtomicInteger(Integer.MAX_VALUE);
+        this.caminho = null;
+    }
+
+    int getCusto() {
+        return custo.get();
+    }
+
+    synchronized int[] getCaminho() {
+        return caminho;
+    }
+
+    synchronized boolean tentarAtualizar(int novoCusto, int[] novoCaminho, int tamanho) {
+        if (novoCusto >= custo.get()) {
+            return false;
+        }
+
+        caminho = Arrays.copyOf(novoCaminho, tamanho);
+        custo.set(novoCusto);
+
+        return true;
+    }
+}
@@ -0,0 +1,133 @@
+package bruteForceApproach;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Objects;
+
+import common.DistanceOracle;
+import common.Exceptions;
+
+// Read-only data shared by every branch and bound search over the same graph:
+// the cheapest outgoing edge of each city and the neighbours of each city
+// sorted by distance. Unvisited sets are bitmasks, so at most 64 cities
+class LimitantesDeBusca {
+    static final int MAXIMO_DE_CIDADES = Long.SIZE;
+
+    private final DistanceOracle grafoDeDistancia;
+    private final int cidades;
+    private final int[] menorSaida;
+    private final int[][] vizinhosOrdenados;
+    private final int somaMenorSaida;
+
+    LimitantesDeBusca(DistanceOracle grafo) {
+        this.grafoDeDistancia = Objects.requireNonNull(grafo);
+        this.cidades = grafo.getNumberOfCities();
+
+        Exceptions.throwIfGreatherThan(cidades, MAXIMO_DE_CIDADES, "number of cities");
+
+        this.menorSaida = new int[cidades];
+        this.vizinhosOrdenados = new int[cidades][];
+
+        var soma = 0;
+
+        for (int i = 0; i < cidades; i++) {
+            var origem = i;
+            var vizinhos = new ArrayList<Integer>(cidades - 1);
+
+            menorSaida[i] = Integer.MAX_VALUE;
+
+            for (int j = 0; j < cidades; j++) {
+                var distancia = grafo.getDistance(i, j);
+
+                // A zero distance means there is no link between the cities
+                if (j != i && distancia > 0) {
+                    vizinhos.add(j);
+                    menorSaida[i] = Math.min(menorSaida[i], distancia);
+                }
+            }
+
+            vizinhos.sort(Comparator.comparingInt(j -> grafo.getDistance(origem, j)));
+            vizinhosOrdenados[i] = vizinhos.stream().mapToInt(Integer::intValue).toArray();
+
+            if (i != 0 && menorSaida[i] != Integer.MAX_VALUE) {
+                soma += menorSaida[i];
+            }
+        }
+
+        this.somaMenorSaida = soma;
+    }
+
+    static long todasMenosARaiz(int cidades) {
+        var todas = cidades == Long.SIZE ? -1L : (1L << cidades) - 1;
+
+        return todas & ~1L;
+    }
+
+    int getCidades() {
+        return cidades;
+    }
+
+    int getMenorSaida(int cidade) {
+        return menorSaida[cidade];
+    }
+
+    int[] getVizinhosOrdenados(int cidade) {
+        return vizinhosOrdenados[cidade];
+    }
+
+    // Every unvisited city still has to be left, at least through its cheapest
+    // outgoing edge, so the partial cost plus the sum of those edges never
+    // overestimates the cost of any completion of the path. The current city is
+    // not counted. This is that sum while nothing but the root has been visited
+    int getSomaMenorSaida() {
+        return somaMenorSaida;
+    }
+
+    // Whatever the next city is, the rest of the tour is a path through all the
+    // unvisited cities ending at the root, so it costs at least as much as the
+    // minimum spanning tree over them and the root.
+    // Dense Prim, O(k^2) for k cities left, over caller owned buffers so
+    // concurrent searches do not share state
+    int custoDaArvore(long naoVisitados, int[] chaves, int[] cidadesDaArvore) {
+        var quantidade = 0;
+
+        cidadesDaArvore[quantidade++] = 0;
+
+        for (var resto = naoVisitados; resto != 0; resto &= resto - 1) {
+            cidadesDaArvore[quantidade++] = Long.numberOfTrailingZeros(resto);
+        }
+
+        for (int i = 1; i < quantidade; i++) {
+            chaves[i] = grafoDeDistancia.getDistance(0, cidadesDaArvore[i]);
+        }
+
+        var custo = 0;
+
+        // Cities already in the tree are swapped to the end of the active range
+        for (int restantes = quantidade - 1; restantes > 0; restantes--) {
+            var melhor = 1;
+
+            for (int i = 2; i <= restantes; i++) {
+                if (chaves[i] < chaves[melhor]) {
+                    melhor = i;
+                }
+            }
+
+            var escolhida = cidadesDaArvore[melhor];
+            custo += chaves[melhor];
+
+            cidadesDaArvore[melhor] = cidadesDaArvore[restantes];
+            chaves[melhor] = chaves[restantes];
+
+            for (int i = 1; i < restantes; i++) {
+                var distancia = grafoDeDistancia.getDistance(escolhida, cidadesDaArvore[i]);
+
+                if (distancia < chaves[i]) {
+                    chaves[i] = distancia;
+                }
+            }
+        }
+
+        return custo;
+    }
+}
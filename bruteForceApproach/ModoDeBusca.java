@@ -0,0 +1,12 @@
+package bruteForceApproach;
+
+public enum ModoDeBusca {
+    // Expands every partial path down to the leaves
+    BACKTRACKING,
+
+    // Cuts a subtree as soon as its lower bound reaches the best known tour
+    BRANCH_AND_BOUND,
+
+    // Branch and bound with the first levels split into fork-join tasks
+    PARALELO
+}
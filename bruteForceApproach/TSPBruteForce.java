@@ -2,47 +2,162 @@ package bruteForceApproach;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
+import common.DistanceOracle;
 import common.Exceptions;
+import heuristics.MSTStrategy;
+import heuristics.TSPHeuristic;
 
 public class TSPBruteForce {
     private int cidades;
-    private int[][] grafoDeDistancia;
-    private boolean[] visitados;
+    private DistanceOracle grafoDeDistancia;
     private int custoMinimo;
-    private Vertices ultimaCidade;
+    private final ModoDeBusca modo;
+
+    // The current path is a preallocated stack of city indexes and the cities
+    // not visited yet are a bitmask, so the search itself allocates nothing.
+    // The best tour found is copied into its own array
+    private final int[] caminho;
+    private final int[] melhorCaminho;
+    private long naoVisitados;
+
+    // Branch and bound state: shared bounds, the cheapest outgoing edges summed
+    // over the unvisited cities and the buffers used to compute the spanning
+    // tree bound
+    private LimitantesDeBusca limitantes;
+    private int somaMenorSaidaNaoVisitados;
+    private int[] chavesDaArvore;
+    private int[] cidadesDaArvore;
+
+    // Checkpoint state: the clock is only read every NOS_ENTRE_TESTES nodes.
+    // On a resume the saved path is replayed, skipping the siblings that were
+    // explored before the checkpoint, until the search reaches its last node
+    private static final int NOS_ENTRE_TESTES = 1 << 16;
+    private CheckpointDaBusca checkpoint;
+    private long intervaloDoCheckpoint;
+    private long ultimoCheckpoint;
+    private int nosVisitados;
+    private int[] caminhoRetomado;
+    private int tamanhoRetomado;
+
+    // Time limit state: checked on the same node count as the checkpoint.
+    // Once the limit passes the search unwinds with the best tour so far
+    private long tempoLimite;
+    private long inicioDaBusca;
+    private boolean tempoEsgotado;
+
+    public TSPBruteForce(DistanceOracle grafo) {
+        this(grafo, ModoDeBusca.BACKTRACKING);
+    }
+
+    public TSPBruteForce(DistanceOracle grafo, ModoDeBusca modo) {
+        this.grafoDeDistancia = Objects.requireNonNull(grafo);
+        this.modo = Objects.requireNonNull(modo);
+        this.cidades = grafo.getNumberOfCities();
+
+        Exceptions.throwIfGreatherThan(cidades, LimitantesDeBusca.MAXIMO_DE_CIDADES, "number of cities");
 
-    public TSPBruteForce(int[][] grafo) {
-        this.cidades = grafo.length;
-        this.grafoDeDistancia = grafo;
-        this.visitados = new boolean[cidades];
         this.custoMinimo = Integer.MAX_VALUE;
-        this.ultimaCidade = null;
+        this.caminho = new int[cidades];
+        this.melhorCaminho = new int[cidades];
 
-        // Mark first vertex as visited since we use it as the root
-        visitados[0] = true;
+        // Leave the first vertex out of the unvisited set since we use it as the root
+        this.naoVisitados = LimitantesDeBusca.todasMenosARaiz(cidades);
+        this.tempoLimite = Long.MAX_VALUE;
+    }
+
+    // Branch and bound that stops once tempoLimiteEmMillis have passed, with
+    // the best tour found until then, see isOtimo
+    public TSPBruteForce(DistanceOracle grafo, long tempoLimiteEmMillis) {
+        this(grafo, ModoDeBusca.BRANCH_AND_BOUND);
+
+        if (tempoLimiteEmMillis < 0) {
+            throw new IllegalArgumentException("The time limit must not be negative");
+        }
+
+        this.tempoLimite = tempoLimiteEmMillis > Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE
+                : tempoLimiteEmMillis * 1_000_000;
+    }
+
+    // Branch and bound that saves its progress to the given file whenever at
+    // least intervaloEmMillis have passed since the last save
+    public TSPBruteForce(DistanceOracle grafo, Path arquivoDeCheckpoint, long intervaloEmMillis) {
+        this(grafo, ModoDeBusca.BRANCH_AND_BOUND);
+
+        if (intervaloEmMillis < 0) {
+            throw new IllegalArgumentException("The checkpoint interval must not be negative");
+        }
+
+        this.checkpoint = new CheckpointDaBusca(Objects.requireNonNull(arquivoDeCheckpoint), grafo);
+        this.intervaloDoCheckpoint = intervaloEmMillis * 1_000_000;
+    }
+
+    // Continues a checkpointed branch and bound from the last save, finding
+    // the same tour an uninterrupted run would
+    public static TSPBruteForce retomar(DistanceOracle grafo, Path arquivoDeCheckpoint, long intervaloEmMillis) {
+        var busca = new TSPBruteForce(grafo, arquivoDeCheckpoint, intervaloEmMillis);
+
+        try {
+            busca.checkpoint.carregar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        busca.caminhoRetomado = busca.checkpoint.getCaminho();
+        busca.tamanhoRetomado = busca.caminhoRetomado.length;
+
+        if (busca.checkpoint.getCusto() != Integer.MAX_VALUE) {
+            busca.guardarCaminho(busca.checkpoint.getMelhorCaminho(), busca.checkpoint.getCusto());
+        }
+
+        return busca;
     }
 
     public int getCustoMinimo() {
-        backTracking(new Vertices(0, null, 0), 1);
+        if (modo == ModoDeBusca.PARALELO) {
+            buscarEmParalelo();
+        } else if (modo == ModoDeBusca.BRANCH_AND_BOUND) {
+            inicioDaBusca = System.nanoTime();
+            prepararLimitantes();
+            semearComHeuristica();
+            ultimoCheckpoint = System.nanoTime();
+            branchAndBound(1, 0);
+            apagarCheckpoint();
+        } else {
+            backTracking(1, 0);
+        }
+
         return custoMinimo;
     }
 
-    private void backTracking(Vertices cidadeAtual, int cidadesVisitadas) {
+    // False when the time limit stopped the search before it was complete, so
+    // the tour found is not proven to be the shortest
+    public boolean isOtimo() {
+        return !tempoEsgotado;
+    }
+
+    private void backTracking(int cidadesVisitadas, int custoDistancia) {
+        var cidadeAtual = caminho[cidadesVisitadas - 1];
+
         // If last vertex is reached and it has a link to the root vertex then
         // keep the minimum value out of the total cost
         // of traversal and "ans"
         // Returning to check for more possible values
-        if (cidadesVisitadas == cidades && grafoDeDistancia[cidadeAtual.getId()][0] > 0) {
-            if (custoMinimo <= cidadeAtual.getCustoDistancia() + grafoDeDistancia[cidadeAtual.getId()][0])
+        if (cidadesVisitadas == cidades && grafoDeDistancia.getDistance(cidadeAtual, 0) > 0) {
+            if (custoMinimo <= custoDistancia + grafoDeDistancia.getDistance(cidadeAtual, 0))
                 return;
 
             // Better path found
             else {
-                custoMinimo = cidadeAtual.getCustoDistancia() + grafoDeDistancia[cidadeAtual.getId()][0];
-                ultimaCidade = cidadeAtual;
+                custoMinimo = custoDistancia + grafoDeDistancia.getDistance(cidadeAtual, 0);
+                System.arraycopy(caminho, 0, melhorCaminho, 0, cidades);
                 return;
             }
         }
@@ -52,16 +167,189 @@ public class TSPBruteForce {
         // by 1, moving to the next vertex and increasing the new vertex cost by
         // graph[currentVertex,i] value
         for (int i = 0; i < cidades; i++) {
-            if (!visitados[i] && grafoDeDistancia[cidadeAtual.getId()][i] > 0) {
+            if ((naoVisitados & (1L << i)) != 0 && grafoDeDistancia.getDistance(cidadeAtual, i) > 0) {
                 // Mark as visited
-                visitados[i] = true;
+                naoVisitados &= ~(1L << i);
+                caminho[cidadesVisitadas] = i;
 
-                Vertices nextVertex = new Vertices(i, cidadeAtual,
-                        cidadeAtual.getCustoDistancia() + grafoDeDistancia[cidadeAtual.getId()][i]);
-                backTracking(nextVertex, cidadesVisitadas + 1);
+                backTracking(cidadesVisitadas + 1, custoDistancia + grafoDeDistancia.getDistance(cidadeAtual, i));
 
                 // Mark ith node as unvisited after the recursion return
-                visitados[i] = false;
+                naoVisitados |= 1L << i;
+            }
+        }
+    }
+
+    // Resets the branch and bound state for a new search from the root
+    private void prepararLimitantes() {
+        limitantes = new LimitantesDeBusca(grafoDeDistancia);
+        somaMenorSaidaNaoVisitados = limitantes.getSomaMenorSaida();
+        chavesDaArvore = new int[cidades];
+        cidadesDaArvore = new int[cidades];
+    }
+
+    // The double-tree tour, without the return to the root, or null when it
+    // uses a missing link
+    private int[] tourDaHeuristica() {
+        if (cidades < 3) {
+            return null;
+        }
+
+        var tour = new TSPHeuristic(grafoDeDistancia, MSTStrategy.PRIM).getPathApproximation();
+        var caminho = new int[cidades];
+
+        for (int i = 0; i < cidades; i++) {
+            caminho[i] = tour.get(i) - 1;
+
+            // A zero distance means there is no link between the cities
+            if (grafoDeDistancia.getDistance(caminho[i], tour.get(i + 1) - 1) <= 0) {
+                return null;
+            }
+        }
+
+        return caminho;
+    }
+
+    private int custoDoCaminho(int[] caminho) {
+        var custo = 0;
+
+        for (int i = 0; i < caminho.length; i++) {
+            custo += grafoDeDistancia.getDistance(caminho[i], caminho[(i + 1) % caminho.length]);
+        }
+
+        return custo;
+    }
+
+    private void guardarCaminho(int[] caminho, int custo) {
+        System.arraycopy(caminho, 0, melhorCaminho, 0, cidades);
+        custoMinimo = custo;
+    }
+
+    // Starts the search with the double-tree tour as the incumbent, so the
+    // bound prunes from the very first branch
+    private void semearComHeuristica() {
+        var caminho = tourDaHeuristica();
+
+        if (caminho != null && custoDoCaminho(caminho) < custoMinimo) {
+            guardarCaminho(caminho, custoDoCaminho(caminho));
+        }
+    }
+
+    // Splits the first levels of the search tree into fork-join tasks that
+    // prune against a shared incumbent, seeded with the double-tree tour
+    private void buscarEmParalelo() {
+        var incumbente = new Incumbente();
+        var caminhoInicial = tourDaHeuristica();
+
+        limitantes = new LimitantesDeBusca(grafoDeDistancia);
+
+        if (caminhoInicial != null) {
+            incumbente.tentarAtualizar(custoDoCaminho(caminhoInicial), caminhoInicial, cidades);
+        }
+
+        ForkJoinPool.commonPool().invoke(new BuscaParalela(grafoDeDistancia, limitantes, incumbente));
+
+        if (incumbente.getCaminho() != null && incumbente.getCusto() < custoMinimo) {
+            guardarCaminho(incumbente.getCaminho(), incumbente.getCusto());
+        }
+    }
+
+    private boolean esgotouOTempo() {
+        if (!tempoEsgotado && tempoLimite != Long.MAX_VALUE && nosVisitados % NOS_ENTRE_TESTES == 0
+                && System.nanoTime() - inicioDaBusca >= tempoLimite) {
+            tempoEsgotado = true;
+        }
+
+        return tempoEsgotado;
+    }
+
+    // Saves the incumbent and the path of the node about to be expanded
+    private void talvezSalvarCheckpoint(int cidadesVisitadas) {
+        if (checkpoint == null || nosVisitados % NOS_ENTRE_TESTES != 0
+                || System.nanoTime() - ultimoCheckpoint < intervaloDoCheckpoint) {
+            return;
+        }
+
+        try {
+            checkpoint.salvar(custoMinimo, melhorCaminho, caminho, cidadesVisitadas);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ultimoCheckpoint = System.nanoTime();
+    }
+
+    private void apagarCheckpoint() {
+        if (checkpoint == null) {
+            return;
+        }
+
+        try {
+            checkpoint.apagar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void branchAndBound(int cidadesVisitadas, int custoDistancia) {
+        var atual = caminho[cidadesVisitadas - 1];
+
+        // The resumed node is reached, from here on the search runs as usual
+        if (cidadesVisitadas == tamanhoRetomado) {
+            tamanhoRetomado = 0;
+        }
+
+        nosVisitados++;
+
+        if (esgotouOTempo()) {
+            return;
+        }
+
+        talvezSalvarCheckpoint(cidadesVisitadas);
+
+        if (cidadesVisitadas == cidades) {
+            var retorno = grafoDeDistancia.getDistance(atual, 0);
+
+            if (retorno > 0 && custoDistancia + retorno < custoMinimo) {
+                guardarCaminho(caminho, custoDistancia + retorno);
+            }
+
+            return;
+        }
+
+        var restante = Math.max(somaMenorSaidaNaoVisitados,
+                limitantes.custoDaArvore(naoVisitados, chavesDaArvore, cidadesDaArvore));
+
+        // Neighbours are sorted by distance, so once the bound of one child
+        // reaches the incumbent the bounds of all the following ones do as well
+        for (var proxima : limitantes.getVizinhosOrdenados(atual)) {
+            if ((naoVisitados & (1L << proxima)) == 0) {
+                continue;
+            }
+
+            // Siblings before the resumed path were explored before the checkpoint
+            if (cidadesVisitadas < tamanhoRetomado && proxima != caminhoRetomado[cidadesVisitadas]) {
+                continue;
+            }
+
+            var custo = custoDistancia + grafoDeDistancia.getDistance(atual, proxima);
+
+            if (custo + restante >= custoMinimo) {
+                tamanhoRetomado = 0;
+                break;
+            }
+
+            naoVisitados &= ~(1L << proxima);
+            somaMenorSaidaNaoVisitados -= limitantes.getMenorSaida(proxima);
+            caminho[cidadesVisitadas] = proxima;
+
+            branchAndBound(cidadesVisitadas + 1, custo);
+
+            somaMenorSaidaNaoVisitados += limitantes.getMenorSaida(proxima);
+            naoVisitados |= 1L << proxima;
+
+            if (tempoEsgotado) {
+                break;
             }
         }
     }
@@ -71,11 +359,13 @@ public class TSPBruteForce {
         List<Integer> shortestPath = new ArrayList<>();
         shortestPath.add(1);
 
-        Vertices cidadeAtual = ultimaCidade;
+        if (custoMinimo == Integer.MAX_VALUE) {
+            return shortestPath;
+        }
 
-        while (cidadeAtual != null) {
-            shortestPath.add(cidadeAtual.getId() + 1);
-            cidadeAtual = cidadeAtual.getPrev();
+        // The tour is listed backwards, from the last city to the root
+        for (int i = cidades - 1; i >= 0; i--) {
+            shortestPath.add(melhorCaminho[i] + 1);
         }
 
         return shortestPath;
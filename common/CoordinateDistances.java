@@ -0,0 +1,54 @@
+package common;
+
+import java.util.List;
+import java.util.Objects;
+
+public class CoordinateDistances implements DistanceOracle {
+    private final int[] xs;
+    private final int[] ys;
+
+    public CoordinateDistances(List<Coordinates> coordinates) {
+        Objects.requireNonNull(coordinates);
+
+        this.xs = new int[coordinates.size()];
+        this.ys = new int[coordinates.size()];
+
+        for (int i = 0; i < coordinates.size(); i++) {
+            xs[i] = coordinates.get(i).getX();
+            ys[i] = coordinates.get(i).getY();
+        }
+    }
+
+    public CoordinateDistances(int[] xs, int[] ys) {
+        Exceptions.throwIfNotEqual(Objects.requireNonNull(xs).length, Objects.requireNonNull(ys).length,
+                "number of x values", "number of y values");
+
+        this.xs = xs;
+        this.ys = ys;
+    }
+
+    public static int calculateRoundedDistance(int fromX, int fromY, int toX, int toY) {
+        long xDifference = fromX - toX;
+        long yDifference = fromY - toY;
+
+        return (int) Math.round(Math.sqrt(xDifference * xDifference + yDifference * yDifference));
+    }
+
+    @Override
+    public int getNumberOfCities() {
+        return xs.length;
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        return calculateRoundedDistance(xs[from], ys[from], xs[to], ys[to]);
+    }
+
+    public int[] getXs() {
+        return xs;
+    }
+
+    public int[] getYs() {
+        return ys;
+    }
+}
@@ -38,8 +38,8 @@ public class Coordinates {
     public double calculateDistanceTo(Coordinates coordinates) {
         Objects.requireNonNull(coordinates);
 
-        var xDifference = x - coordinates.getX();
-        var yDifference = y - coordinates.getY();
+        long xDifference = x - coordinates.getX();
+        long yDifference = y - coordinates.getY();
         var xSquared = xDifference * xDifference;
         var ySquared = yDifference * yDifference;
 
@@ -3,7 +3,7 @@ package common;
 import java.util.List;
 import java.util.Objects;
 
-public class DistanceMatrix {
+public class DistanceMatrix implements DistanceOracle {
     private final int[][] matrix;
 
     public DistanceMatrix(List<Coordinates> coordinates) {
@@ -14,6 +14,16 @@ public class DistanceMatrix {
         initMatrixWith(coordinates);
     }
 
+    public DistanceMatrix(int[][] matrix) {
+        Objects.requireNonNull(matrix);
+
+        for (var row : matrix) {
+            Exceptions.throwIfNotEqual(row.length, matrix.length, "row length", "number of rows");
+        }
+
+        this.matrix = matrix;
+    }
+
     private void initMatrixWith(List<Coordinates> coordinates) {
         for (int i = 0; i < matrix.length; i++) {
             for (int j = 0; j < matrix.length; j++) {
@@ -32,6 +42,16 @@ public class DistanceMatrix {
         return matrix;
     }
 
+    @Override
+    public int getNumberOfCities() {
+        return matrix.length;
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        return matrix[from][to];
+    }
+
     public void show() {
         for (int i = 0; i < matrix.length; i++) {
             System.out.print("[\t");
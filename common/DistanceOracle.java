@@ -0,0 +1,7 @@
+package common;
+
+public interface DistanceOracle {
+    int getNumberOfCities();
+
+    int getDistance(int from, int to);
+}
@@ -0,0 +1,115 @@
+package common;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class SymmetricDistanceMatrix implements DistanceOracle {
+    // n * (n - 1) / 2 has to fit in a single int indexed array
+    public static final int MAXIMUM_NUMBER_OF_CITIES = 65536;
+
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 16;
+
+    private final int numberOfCities;
+    private final int[] rowStarts;
+    private final int[] upperTriangle;
+
+    public SymmetricDistanceMatrix(List<Coordinates> coordinates) {
+        this(new CoordinateDistances(Objects.requireNonNull(coordinates)));
+    }
+
+    public SymmetricDistanceMatrix(CoordinateDistances coordinates) {
+        this(coordinates, ForkJoinPool.commonPool());
+    }
+
+    public SymmetricDistanceMatrix(CoordinateDistances coordinates, ForkJoinPool pool) {
+        Objects.requireNonNull(coordinates);
+        Objects.requireNonNull(pool);
+
+        numberOfCities = coordinates.getNumberOfCities();
+        Exceptions.throwIfGreatherThan(numberOfCities, MAXIMUM_NUMBER_OF_CITIES, "number of cities");
+
+        rowStarts = new int[numberOfCities];
+        upperTriangle = new int[(int) ((long) numberOfCities * (numberOfCities - 1) / 2)];
+
+        initRowStarts();
+        pool.invoke(new FillRows(coordinates.getXs(), coordinates.getYs(), 0, numberOfCities));
+    }
+
+    // row i holds the distances from i to i + 1, ..., n - 1 one after the other,
+    // so the cell (i, j) with i < j lives at rowStarts[i] + j
+    private void initRowStarts() {
+        var start = 0;
+
+        for (int i = 0; i < numberOfCities; i++) {
+            rowStarts[i] = start - i - 1;
+            start += numberOfCities - i - 1;
+        }
+    }
+
+    private class FillRows extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] xs;
+        private final int[] ys;
+        private final int firstRow;
+        private final int lastRow;
+
+        FillRows(int[] xs, int[] ys, int firstRow, int lastRow) {
+            this.xs = xs;
+            this.ys = ys;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+        }
+
+        private long numberOfCells() {
+            var firstRowLength = (long) numberOfCities - firstRow - 1;
+            var lastRowLength = (long) numberOfCities - lastRow;
+
+            return (firstRowLength + lastRowLength) * (lastRow - firstRow) / 2;
+        }
+
+        @Override
+        protected void compute() {
+            if (lastRow - firstRow > 1 && numberOfCells() > SEQUENTIAL_THRESHOLD) {
+                var middleRow = (firstRow + lastRow) >>> 1;
+
+                invokeAll(new FillRows(xs, ys, firstRow, middleRow), new FillRows(xs, ys, middleRow, lastRow));
+                return;
+            }
+
+            for (int i = firstRow; i < lastRow; i++) {
+                var xI = xs[i];
+                var yI = ys[i];
+                var rowStart = rowStarts[i];
+
+                for (int j = i + 1; j < numberOfCities; j++) {
+                    upperTriangle[rowStart + j] = CoordinateDistances.calculateRoundedDistance(xI, yI, xs[j], ys[j]);
+                }
+            }
+        }
+    }
+
+    @Override
+    public int getNumberOfCities() {
+        return numberOfCities;
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        if (from == to) {
+            return 0;
+        }
+
+        if (from > to) {
+            return upperTriangle[rowStarts[to] + from];
+        }
+
+        return upperTriangle[rowStarts[from] + to];
+    }
+
+    public long getFootprintInBytes() {
+        return 4L * upperTriangle.length + 4L * rowStarts.length;
+    }
+}
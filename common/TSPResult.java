@@ -0,0 +1,64 @@
+package common;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+public class TSPResult {
+    private final String solverName;
+    private final List<Integer> tour;
+    private final int cost;
+    private final long elapsedTimeInNanos;
+    private final boolean isOptimal;
+
+    // tour is 1-based and starts and ends at city 1, like the solvers return it
+    public TSPResult(String solverName, List<Integer> tour, int cost, long elapsedTimeInNanos, boolean isOptimal) {
+        Exceptions.throwIfNullOrEmpty(solverName, "solver name");
+
+        this.solverName = solverName;
+        this.tour = List.copyOf(Objects.requireNonNull(tour));
+        this.cost = cost;
+        this.elapsedTimeInNanos = elapsedTimeInNanos;
+        this.isOptimal = isOptimal;
+    }
+
+    public String getSolverName() {
+        return solverName;
+    }
+
+    public List<Integer> getTour() {
+        return tour;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    public long getElapsedTimeInNanos() {
+        return elapsedTimeInNanos;
+    }
+
+    public boolean isOptimal() {
+        return isOptimal;
+    }
+
+    @Override
+    public String toString() {
+        return solverName + ": " + tour + " (cost " + cost + ", " + elapsedTimeInNanos / 1_000_000 + " ms"
+                + (isOptimal ? ", optimal)" : ")");
+    }
+
+    public void tryStoreInfosInFile(String fileName) {
+        Exceptions.throwIfNullOrEmpty(fileName, "fileName");
+
+        try (var writer = new BufferedWriter(new FileWriter(fileName))) {
+            writer.write(tour.toString());
+            writer.newLine();
+            writer.write(Integer.toString(cost));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
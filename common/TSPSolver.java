@@ -0,0 +1,6 @@
+package common;
+
+public interface TSPSolver {
+    // solvers that are not anytime ignore the time budget
+    TSPResult solve(DistanceOracle distanceMatrix, long timeBudgetInMillis);
+}
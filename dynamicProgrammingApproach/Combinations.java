@@ -0,0 +1,64 @@
+package dynamicProgrammingApproach;
+
+// Operações sobre subconjuntos de k elementos representados como máscaras
+// de bits, na ordem colexicográfica (a mesma ordem crescente de valores em
+// que o Gosper's hack os gera)
+class Combinations {
+    private final long[][] binomials;
+
+    // O(n^2), triângulo de Pascal até n
+    Combinations(int n) {
+        binomials = new long[n + 1][n + 1];
+
+        for (int i = 0; i <= n; i++) {
+            binomials[i][0] = 1;
+
+            for (int j = 1; j <= i; j++) {
+                binomials[i][j] = binomials[i - 1][j - 1] + binomials[i - 1][j];
+            }
+        }
+    }
+
+    // O(1), C(n, k), zero quando k > n
+    long binomial(int n, int k) {
+        return k > n ? 0 : binomials[n][k];
+    }
+
+    // O(1), próxima combinação com o mesmo número de bits (Gosper's hack)
+    static int next(int combination) {
+        var lowestBit = combination & -combination;
+        var ripple = combination + lowestBit;
+
+        return (((ripple ^ combination) >>> 2) >>> Integer.numberOfTrailingZeros(lowestBit)) | ripple;
+    }
+
+    // O(n), a combinação de k bits que está na posição rank da ordem colexicográfica
+    int unrank(long rank, int k) {
+        var combination = 0;
+        var position = binomials.length - 1;
+
+        for (int i = k; i > 0; i--) {
+            while (binomial(position, i) > rank) {
+                position--;
+            }
+
+            combination |= 1 << position;
+            rank -= binomial(position, i);
+            position--;
+        }
+
+        return combination;
+    }
+
+    // O(k), posição da combinação na ordem colexicográfica
+    long rank(int combination) {
+        var rank = 0L;
+        var i = 1;
+
+        for (var remaining = combination; remaining != 0; remaining &= remaining - 1, i++) {
+            rank += binomial(Integer.numberOfTrailingZeros(remaining), i);
+        }
+
+        return rank;
+    }
+}
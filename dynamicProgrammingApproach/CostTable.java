@@ -0,0 +1,55 @@
+package dynamicProgrammingApproach;
+
+// Tabela plana de custos do Held-Karp, guardada em char (2 bytes) quando
+// o maior custo possível cabe em 16 bits sem sinal e em int caso contrário
+abstract class CostTable {
+    static final long CHAR_LIMIT = Character.MAX_VALUE;
+
+    abstract int get(int index);
+
+    abstract void set(int index, int cost);
+
+    static CostTable allocate(int numberOfEntries, boolean fitsInChars) {
+        return fitsInChars ? new CharCostTable(numberOfEntries) : new IntCostTable(numberOfEntries);
+    }
+
+    static long bytesPerEntry(boolean fitsInChars) {
+        return fitsInChars ? Character.BYTES : Integer.BYTES;
+    }
+
+    private static final class IntCostTable extends CostTable {
+        private final int[] costs;
+
+        IntCostTable(int numberOfEntries) {
+            this.costs = new int[numberOfEntries];
+        }
+
+        @Override
+        int get(int index) {
+            return costs[index];
+        }
+
+        @Override
+        void set(int index, int cost) {
+            costs[index] = cost;
+        }
+    }
+
+    private static final class CharCostTable extends CostTable {
+        private final char[] costs;
+
+        CharCostTable(int numberOfEntries) {
+            this.costs = new char[numberOfEntries];
+        }
+
+        @Override
+        int get(int index) {
+            return costs[index];
+        }
+
+        @Override
+        void set(int index, int cost) {
+            costs[index] = (char) cost;
+        }
+    }
+}
@@ -1,60 +1,160 @@
 package dynamicProgrammingApproach;
 
 import java.util.Objects;
+import common.DistanceOracle;
 import common.Exceptions;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.IntStream;
 
 public class DynamicProgrammingApproach {
+    // o índice subconjunto * (n - 1) + cidade precisa caber em um int
+    public static final int MAXIMUM_NUMBER_OF_CITIES = 26;
+
+    // quantidade de subconjuntos preenchidos por cada tarefa no modo paralelo
+    private static final int PARALLEL_BLOCK_SIZE = 1 << 12;
+
     private final int numberOfCities;
     private final int startingNodeIndex;
-    private final int[][] distanceMatrix;
-    private final int[][] memoryTable;
+    private final int cityStride;
+    private final int[] distancesTo;
+    private final CostTable memoryTable;
+    private final byte[] parentTable;
     private final List<Integer> tour;
     private final int endState;
+    private final boolean isParallel;
+    private final Combinations combinations;
+    private final long[] layerTimesInNanos;
+    private final HeldKarpCheckpoint checkpoint;
+    private final long checkpointIntervalInNanos;
 
     private int minimumTourCost;
+    private int lastCityOffset;
     private boolean wasMinimumTourAlreadyDiscovered;
+    private boolean resumesFromCheckpoint;
+
+    // O(1), posição do estado na tabela plana. Como a cidade inicial está em
+    // todo estado válido ela fica fora da chave: o subconjunto tem só as
+    // outras n - 1 cidades (a cidade c no bit c - 1) e a cidade final c é
+    // guardada como c - 1. Cada subconjunto ocupa exatamente n - 1 posições,
+    // sem arredondar para uma potência de 2
+    private int indexOf(int others, int cityOffset) {
+        return others * cityStride + cityOffset;
+    }
 
-    // O(1)
-    private static int twoPower(int n) {
-        return (int) Math.pow(2, n);
+    // O(1), posições de cada subconjunto, uma para cada cidade fora a inicial
+    private static int cityStrideFor(int numberOfCities) {
+        return Math.max(numberOfCities - 1, 1);
     }
 
-    // O(1)
-    private static int bitwiseAnd(int first, int second) {
-        return first & second;
+    // O(1), 2^(n - 1) * (n - 1) estados, metade das n * 2^n da tabela original
+    // e um pouco menos a cada n
+    private static int numberOfEntriesFor(int numberOfCities) {
+        return (1 << Math.max(numberOfCities - 1, 0)) * cityStrideFor(numberOfCities);
     }
 
-    // O(1)
-    private static int bitwiseOr(int first, int second) {
-        return first | second;
+    // O(n^2), um estado guarda um caminho de no máximo n - 1 arestas, então
+    // se (n - 1) vezes a maior distância cabe em 16 bits a tabela usa char
+    private static boolean fitsInChars(DistanceOracle distanceMatrix) {
+        var numberOfCities = distanceMatrix.getNumberOfCities();
+        var maximumDistance = 0;
+
+        for (int from = 0; from < numberOfCities; from++) {
+            for (int to = 0; to < numberOfCities; to++) {
+                maximumDistance = Math.max(maximumDistance, distanceMatrix.getDistance(from, to));
+            }
+        }
+
+        return (long) (numberOfCities - 1) * maximumDistance <= CostTable.CHAR_LIMIT;
     }
 
-    // O(1)
-    private static int bitwiseXor(int first, int second) {
-        return first ^ second;
+    // O(n^2), memória que a tabela de estados, a de pais (quando usada) e as
+    // distâncias vão ocupar
+    public static long projectMemoryInBytes(DistanceOracle distanceMatrix, HeldKarpOptions options) {
+        var numberOfCities = Objects.requireNonNull(distanceMatrix).getNumberOfCities();
+        var bytesPerEntry = CostTable.bytesPerEntry(fitsInChars(distanceMatrix))
+                + (options.hasParentTable() ? Byte.BYTES : 0);
+
+        Exceptions.throwIfGreatherThan(numberOfCities, MAXIMUM_NUMBER_OF_CITIES, "number of cities");
+
+        return numberOfEntriesFor(numberOfCities) * bytesPerEntry
+                + (long) Integer.BYTES * numberOfCities * numberOfCities;
     }
 
-    public DynamicProgrammingApproach(int[][] distanceMatrix) {
-        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+    // O(n^2)
+    public static long projectMemoryInBytes(DistanceOracle distanceMatrix) {
+        return projectMemoryInBytes(distanceMatrix, new HeldKarpOptions());
+    }
+
+    public DynamicProgrammingApproach(DistanceOracle distanceMatrix) {
+        this(distanceMatrix, new HeldKarpOptions());
+    }
+
+    // O(n^2), copia as distâncias para um vetor primitivo onde
+    // distancesTo[destino * n + origem] é a distância de origem até destino,
+    // deixando contíguas as origens lidas no laço mais interno
+    // A memória projetada é conferida antes de qualquer alocação
+    public DynamicProgrammingApproach(DistanceOracle distanceMatrix, HeldKarpOptions options) {
+        Objects.requireNonNull(distanceMatrix);
+        Objects.requireNonNull(options);
+
+        var projectedMemory = projectMemoryInBytes(distanceMatrix, options);
 
-        if (distanceMatrix.length != distanceMatrix[0].length) {
-            throw new IllegalStateException("Matrix must be square (n x n)");
+        if (projectedMemory > options.getMemoryBudgetInBytes()) {
+            throw new IllegalStateException("The Held-Karp table needs " + projectedMemory
+                    + " bytes, more than the memory budget of " + options.getMemoryBudgetInBytes() + " bytes");
         }
 
-        this.numberOfCities = distanceMatrix.length;
+        this.numberOfCities = distanceMatrix.getNumberOfCities();
         this.startingNodeIndex = 0;
-        this.memoryTable = new int[numberOfCities][twoPower(numberOfCities)];
+        this.cityStride = cityStrideFor(numberOfCities);
+        this.distancesTo = new int[numberOfCities * numberOfCities];
+        this.memoryTable = CostTable.allocate(numberOfEntriesFor(numberOfCities), fitsInChars(distanceMatrix));
+        this.parentTable = options.hasParentTable() ? new byte[numberOfEntriesFor(numberOfCities)] : null;
         this.tour = new ArrayList<>();
-        this.endState = twoPower(numberOfCities) - 1;
+        this.endState = (1 << Math.max(numberOfCities - 1, 0)) - 1;
         this.minimumTourCost = Integer.MAX_VALUE;
+        this.lastCityOffset = -1;
         this.wasMinimumTourAlreadyDiscovered = false;
+        this.isParallel = options.isParallel();
+        this.combinations = new Combinations(Math.max(numberOfCities - 1, 0));
+        this.layerTimesInNanos = new long[numberOfCities];
+        this.resumesFromCheckpoint = false;
+
+        for (int to = 0; to < numberOfCities; to++) {
+            for (int from = 0; from < numberOfCities; from++) {
+                distancesTo[to * numberOfCities + from] = distanceMatrix.getDistance(from, to);
+            }
+        }
+
+        this.checkpoint = options.getCheckpointFile() == null ? null
+                : new HeldKarpCheckpoint(options.getCheckpointFile(), numberOfCities, cityStride,
+                        Arrays.hashCode(distancesTo), fitsInChars(distanceMatrix), memoryTable, parentTable, combinations);
+        this.checkpointIntervalInNanos = options.getCheckpointIntervalInMillis() * 1_000_000;
+    }
+
+    // O(n^2), solver que, na descoberta do tour, carrega as camadas já
+    // gravadas no checkpoint das opções e continua a partir da seguinte.
+    // O resultado é o mesmo de uma execução sem interrupção
+    public static DynamicProgrammingApproach resumeFromCheckpoint(DistanceOracle distanceMatrix,
+            HeldKarpOptions options) {
+        if (options.getCheckpointFile() == null) {
+            throw new IllegalArgumentException("The options have no checkpoint file to resume from");
+        }
+
+        var solver = new DynamicProgrammingApproach(distanceMatrix, options);
+        solver.resumesFromCheckpoint = true;
+
+        return solver;
     }
 
     // Melhor caso, que é quando o mínimo já tiver sido descoberto: O(1)
@@ -79,7 +179,7 @@ public class DynamicProgrammingApproach {
         return minimumTourCost;
     }
 
-    // O(n^5)
+    // O(2^n * n^2)
     private void discoverMinimumTour() {
         if (wasMinimumTourAlreadyDiscovered) {
             return;
@@ -88,116 +188,183 @@ public class DynamicProgrammingApproach {
         // O(n)
         addOutgoingEdgesFromStartingNodeToMemoryTable();
 
-        // O(n^5)
-        fillMemoryTableWithMinimumDistances();
+        try {
+            // O(2^n * n^2)
+            fillMemoryTableWithMinimumDistances(startOrResumeCheckpoint() + 1);
+
+            if (checkpoint != null) {
+                checkpoint.delete();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
 
         // O(n)
         connectTourBackToStartingNodeAndSetMinimumCost();
 
-        // O(n^2)
-        reconstructPathFromMemoryTableAndFillTour();
+        // O(n) com a tabela de pais, O(n^2) sem ela
+        if (parentTable != null) {
+            followParentTableAndFillTour();
+        } else {
+            reconstructPathFromMemoryTableAndFillTour();
+        }
 
         wasMinimumTourAlreadyDiscovered = true;
     }
 
     // O(1)
-    private static boolean notIn(int element, int subset) {
-        return bitwiseAnd(twoPower(element), subset) == 0;
+    private static boolean notIn(int cityOffset, int others) {
+        return (others & (1 << cityOffset)) == 0;
     }
 
     // O(n), pois vai de 0 a número de cidades
     private void addOutgoingEdgesFromStartingNodeToMemoryTable() {
-        for (int end = 0; end < numberOfCities; end++) {
-            if (end != startingNodeIndex) {
-                var column = bitwiseOr(twoPower(startingNodeIndex), twoPower(end));
-                memoryTable[end][column] = distanceMatrix[startingNodeIndex][end];
-            }
+        for (int end = 1; end < numberOfCities; end++) {
+            var endOffset = end - 1;
+            memoryTable.set(indexOf(1 << endOffset, endOffset), distancesTo[end * numberOfCities + startingNodeIndex]);
         }
     }
 
-    // O(n^5), 3 loops aninhados de complexidade O(n) e um com
-    // possível complexidade O(n^2)
-    // Gera combinações para diferentes tamanhos de subconjuntos
-    // e percorre cada combinação gerando novos subconjuntos com
-    // origens e destinos diferentes e também com tamanhos diferentes,
-    // calculando o valor mínimo do caminho dentre cada combinação,
-    // preenchendo também a tabela de memória de distâncias
-    private void fillMemoryTableWithMinimumDistances() {
-        for (int subsetSize = 3; subsetSize <= numberOfCities; subsetSize++) {
-            for (int subset : getAllCombinations(subsetSize)) {
-                if (notIn(startingNodeIndex, subset)) {
-                    continue;
-                }
+    // O(entradas gravadas) na retomada, tamanho da última camada já
+    // preenchida: 1 numa execução nova, que recomeça o checkpoint
+    // Na retomada o arquivo é cortado no fim da última camada completa, senão
+    // as próximas camadas seriam acrescentadas depois dos bytes de uma camada
+    // cortada e uma segunda retomada não conseguiria lê-las
+    private int startOrResumeCheckpoint() throws IOException {
+        if (checkpoint == null) {
+            return 1;
+        }
 
-                for (int next = 0; next < numberOfCities; next++) {
-                    if (next == startingNodeIndex || notIn(next, subset)) {
-                        continue;
-                    }
+        if (resumesFromCheckpoint) {
+            var completeLength = checkpoint.load();
 
-                    var subsetWithoutNext = bitwiseXor(subset, twoPower(next));
-                    var minimumDistance = Integer.MAX_VALUE;
+            try (var channel = FileChannel.open(checkpoint.getFile(), StandardOpenOption.WRITE)) {
+                channel.truncate(completeLength);
+            }
 
-                    for (int end = 0; end < numberOfCities; end++) {
-                        if (end == startingNodeIndex || end == next || notIn(end, subset)) {
-                            continue;
-                        }
+            return checkpoint.getLastLoadedSubsetSize();
+        }
 
-                        var newDistance = memoryTable[end][subsetWithoutNext] + distanceMatrix[end][next];
+        checkpoint.start();
+        return 1;
+    }
 
-                        if (newDistance < minimumDistance) {
-                            minimumDistance = newDistance;
-                        }
-                    }
+    // O(2^n * n^2), cada subconjunto é visitado uma única vez e para cada
+    // cidade dele são testadas as cidades anteriores possíveis
+    // Os subconjuntos de tamanho k só dependem dos de tamanho k - 1, então
+    // as camadas são preenchidas em ordem e, no modo paralelo, cada camada é
+    // dividida em blocos contíguos da ordem colexicográfica que escrevem em
+    // posições disjuntas da tabela, sem nenhuma trava
+    // Entre as camadas, as que ainda não foram gravadas vão para o
+    // checkpoint quando o intervalo dele já tiver passado
+    private void fillMemoryTableWithMinimumDistances(int firstSubsetSize) throws IOException {
+        var lastCheckpointTime = System.nanoTime();
+        var lastCheckpointedSize = firstSubsetSize - 1;
+
+        for (int subsetSize = firstSubsetSize; subsetSize < numberOfCities; subsetSize++) {
+            var start = System.nanoTime();
+            var layerSize = combinations.binomial(numberOfCities - 1, subsetSize);
+
+            if (isParallel && layerSize >= PARALLEL_BLOCK_SIZE) {
+                var size = subsetSize;
+                var numberOfBlocks = (int) ((layerSize + PARALLEL_BLOCK_SIZE - 1) / PARALLEL_BLOCK_SIZE);
+
+                IntStream.range(0, numberOfBlocks).parallel().forEach(block -> {
+                    var firstRank = (long) block * PARALLEL_BLOCK_SIZE;
+                    fillLayer(size, firstRank, Math.min(PARALLEL_BLOCK_SIZE, layerSize - firstRank));
+                });
+            } else {
+                fillLayer(subsetSize, 0, layerSize);
+            }
 
-                    memoryTable[next][subset] = minimumDistance;
-                }
+            layerTimesInNanos[subsetSize] = System.nanoTime() - start;
+
+            if (checkpoint != null && subsetSize < numberOfCities - 1
+                    && System.nanoTime() - lastCheckpointTime >= checkpointIntervalInNanos) {
+                checkpoint.append(lastCheckpointedSize + 1, subsetSize);
+                lastCheckpointedSize = subsetSize;
+                lastCheckpointTime = System.nanoTime();
             }
         }
     }
 
-    // O(n^2)
-    private List<Integer> getAllCombinations(int subsetSize) {
-        var subsets = new ArrayList<Integer>();
-        getAllCombinationsRecursively(0, subsetSize, 0, subsets);
-        return subsets;
-    }
+    // O(quantidade * n^2), preenche os subconjuntos de subsetSize cidades a
+    // partir da posição firstRank da ordem colexicográfica. Os subconjuntos
+    // seguintes são gerados no próprio laço pelo Gosper's hack e os bits são
+    // percorridos com Integer.numberOfTrailingZeros, sem listas nem potências
+    private void fillLayer(int subsetSize, long firstRank, long count) {
+        var others = combinations.unrank(firstRank, subsetSize);
+
+        for (long i = 0; i < count; i++, others = Combinations.next(others)) {
+            for (var nextCandidates = others; nextCandidates != 0; nextCandidates &= nextCandidates - 1) {
+                var nextOffset = Integer.numberOfTrailingZeros(nextCandidates);
+                var othersWithoutNext = others ^ (1 << nextOffset);
+                var previousStates = othersWithoutNext * cityStride;
+                // distancesTo[next * n + end], com next = nextOffset + 1 e end = endOffset + 1
+                var distancesToNext = (nextOffset + 1) * numberOfCities + 1;
+                var minimumDistance = Integer.MAX_VALUE;
+                var bestEndOffset = -1;
+
+                for (var endCandidates = othersWithoutNext; endCandidates != 0; endCandidates &= endCandidates - 1) {
+                    var endOffset = Integer.numberOfTrailingZeros(endCandidates);
+                    var newDistance = memoryTable.get(previousStates + endOffset)
+                            + distancesTo[distancesToNext + endOffset];
+
+                    if (newDistance < minimumDistance) {
+                        minimumDistance = newDistance;
+                        bestEndOffset = endOffset;
+                    }
+                }
 
-    // O(n^2), gera combinações de subconjuntos a partir de um nó e com
-    // um determinado tamanho
-    private void getAllCombinationsRecursively(int start, int size, int subset, List<Integer> subsets) {
-        if (numberOfCities - start < size) {
-            return;
-        }
+                memoryTable.set(indexOf(others, nextOffset), minimumDistance);
 
-        if (size == 0) {
-            subsets.add(subset);
-            return;
+                if (parentTable != null) {
+                    parentTable[indexOf(others, nextOffset)] = (byte) bestEndOffset;
+                }
+            }
         }
+    }
 
-        for (int i = start; i < numberOfCities; i++) {
-            subset = bitwiseXor(subset, twoPower(i));
-
-            getAllCombinationsRecursively(i + 1, size - 1, subset, subsets);
-
-            subset = bitwiseXor(subset, twoPower(i));
-        }
+    // O(n), tempo gasto em cada camada, indexado pelo tamanho do subconjunto
+    // (sem contar a cidade inicial). Só é preenchido depois da descoberta do tour
+    public long[] getLayerTimesInNanos() {
+        return layerTimesInNanos.clone();
     }
 
     // O(n), um único loop para calcular o custo mínimo
     private void connectTourBackToStartingNodeAndSetMinimumCost() {
-        for (int i = 0; i < numberOfCities; i++) {
-            if (i == startingNodeIndex) {
-                continue;
-            }
-
-            var tourCost = memoryTable[i][endState] + distanceMatrix[i][startingNodeIndex];
+        for (int i = 1; i < numberOfCities; i++) {
+            var tourCost = memoryTable.get(indexOf(endState, i - 1)) + distancesTo[startingNodeIndex * numberOfCities + i];
 
             if (tourCost < minimumTourCost) {
                 minimumTourCost = tourCost;
+                lastCityOffset = i - 1;
             }
         }
     }
 
+    // O(n), segue a cidade anterior guardada para cada estado durante o
+    // preenchimento, partindo da última cidade do tour mínimo
+    // O(n) pra reverter o caminho
+    private void followParentTableAndFillTour() {
+        var state = endState;
+        var cityOffset = lastCityOffset;
+
+        tour.add(startingNodeIndex + 1);
+
+        while (state != 0) {
+            var previousOffset = parentTable[indexOf(state, cityOffset)];
+
+            tour.add(cityOffset + 2);
+
+            state = state ^ (1 << cityOffset);
+            cityOffset = previousOffset;
+        }
+
+        tour.add(startingNodeIndex + 1);
+        Collections.reverse(tour);
+    }
+
     // O(n^2), por causa dos dois loops aninhados +
     // O(n) pra reverter o caminho
     // constrói o caminho mínimo a partir da tabela de
@@ -212,12 +379,12 @@ public class DynamicProgrammingApproach {
             var bestDistance = Integer.MAX_VALUE;
             var bestDistanceIndex = -1;
 
-            for (int j = 0; j < numberOfCities; j++) {
-                if (j == startingNodeIndex || notIn(j, state)) {
+            for (int j = 1; j < numberOfCities; j++) {
+                if (notIn(j - 1, state)) {
                     continue;
                 }
 
-                var newDistance = memoryTable[j][state] + distanceMatrix[j][lastIndex];
+                var newDistance = memoryTable.get(indexOf(state, j - 1)) + distancesTo[lastIndex * numberOfCities + j];
 
                 if (newDistance < bestDistance) {
                     bestDistanceIndex = j;
@@ -227,7 +394,7 @@ public class DynamicProgrammingApproach {
 
             tour.add(bestDistanceIndex + 1);
 
-            state = bitwiseXor(state, twoPower(bestDistanceIndex));
+            state = state ^ (1 << (bestDistanceIndex - 1));
             lastIndex = bestDistanceIndex;
         }
 
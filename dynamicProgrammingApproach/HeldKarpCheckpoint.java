@@ -0,0 +1,182 @@
+package dynamicProgrammingApproach;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Checkpoint binário das camadas já preenchidas do Held-Karp. O arquivo tem
+// um cabeçalho que identifica a instância e, depois dele, as camadas na
+// ordem em que foram completadas. Cada camada é o seu tamanho, os custos
+// (e pais, quando há tabela de pais) de cada estado na ordem colexicográfica
+// dos subconjuntos e o tamanho de novo como marca de fim, então uma camada
+// cortada no meio por uma queda é simplesmente descartada na retomada, e o
+// arquivo é cortado no fim da última camada completa antes de receber as
+// próximas
+class HeldKarpCheckpoint {
+    private static final int MAGIC = 0x484b4350;
+    private static final int VERSION = 1;
+
+    // mágico, versão, cidades e impressão digital, depois os dois booleanos
+    private static final int HEADER_BYTES = 4 * Integer.BYTES + 2;
+
+    private final Path file;
+    private final int numberOfCities;
+    private final int cityStride;
+    private final int fingerprint;
+    private final boolean fitsInChars;
+    private final CostTable memoryTable;
+    private final byte[] parentTable;
+    private final Combinations combinations;
+
+    private int lastLoadedSubsetSize;
+
+    HeldKarpCheckpoint(Path file, int numberOfCities, int cityStride, int fingerprint, boolean fitsInChars,
+            CostTable memoryTable, byte[] parentTable, Combinations combinations) {
+        this.file = file;
+        this.numberOfCities = numberOfCities;
+        this.cityStride = cityStride;
+        this.fingerprint = fingerprint;
+        this.fitsInChars = fitsInChars;
+        this.memoryTable = memoryTable;
+        this.parentTable = parentTable;
+        this.combinations = combinations;
+        this.lastLoadedSubsetSize = 1;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    // O(1), começa um checkpoint novo, sobrescrevendo o anterior
+    void start() throws IOException {
+        try (var output = new DataOutputStream(new FileOutputStream(file.toFile()))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(numberOfCities);
+            output.writeInt(fingerprint);
+            output.writeBoolean(fitsInChars);
+            output.writeBoolean(parentTable != null);
+        }
+    }
+
+    // O(C(n - 1, k) * k) por camada, acrescenta as camadas de firstSubsetSize
+    // até lastSubsetSize ao fim do arquivo e só retorna depois delas chegarem
+    // ao disco
+    void append(int firstSubsetSize, int lastSubsetSize) throws IOException {
+        try (var stream = new FileOutputStream(file.toFile(), true);
+                var output = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            for (int subsetSize = firstSubsetSize; subsetSize <= lastSubsetSize; subsetSize++) {
+                writeLayer(output, subsetSize);
+            }
+
+            output.flush();
+            stream.getFD().sync();
+        }
+    }
+
+    private void writeLayer(DataOutputStream output, int subsetSize) throws IOException {
+        var layerSize = combinations.binomial(numberOfCities - 1, subsetSize);
+        var others = combinations.unrank(0, subsetSize);
+
+        output.writeInt(subsetSize);
+
+        for (long i = 0; i < layerSize; i++, others = Combinations.next(others)) {
+            for (var cities = others; cities != 0; cities &= cities - 1) {
+                // mesma chave do DynamicProgrammingApproach.indexOf
+                var index = others * cityStride + Integer.numberOfTrailingZeros(cities);
+
+                if (fitsInChars) {
+                    output.writeChar(memoryTable.get(index));
+                } else {
+                    output.writeInt(memoryTable.get(index));
+                }
+
+                if (parentTable != null) {
+                    output.writeByte(parentTable[index]);
+                }
+            }
+        }
+
+        output.writeInt(subsetSize);
+    }
+
+    // O(entradas gravadas), carrega as camadas completas do arquivo nas
+    // tabelas e retorna a posição em bytes onde a última delas termina. O
+    // que vem depois é uma camada cortada por uma queda, que precisa ser
+    // removida do arquivo antes de acrescentar outras camadas
+    // O arquivo precisa ter sido gravado para a mesma instância e opções
+    long load() throws IOException {
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IllegalStateException("The file " + file + " is not a Held-Karp checkpoint");
+            }
+
+            if (input.readInt() != numberOfCities || input.readInt() != fingerprint
+                    || input.readBoolean() != fitsInChars || input.readBoolean() != (parentTable != null)) {
+                throw new IllegalStateException("The checkpoint " + file + " was written for another instance");
+            }
+
+            var completeLength = (long) HEADER_BYTES;
+
+            lastLoadedSubsetSize = 1;
+
+            try {
+                while (readLayer(input, lastLoadedSubsetSize + 1)) {
+                    lastLoadedSubsetSize++;
+                    completeLength += layerBytes(lastLoadedSubsetSize);
+                }
+            } catch (EOFException e) {
+                // camada incompleta, que vai ser recalculada
+            }
+
+            return completeLength;
+        }
+    }
+
+    // O(1), tamanho da última camada carregada pelo load, 1 quando não havia
+    // nenhuma completa
+    int getLastLoadedSubsetSize() {
+        return lastLoadedSubsetSize;
+    }
+
+    // O(1), as duas marcas de tamanho mais custo e pai de cada estado
+    private long layerBytes(int subsetSize) {
+        var bytesPerEntry = CostTable.bytesPerEntry(fitsInChars) + (parentTable != null ? Byte.BYTES : 0);
+
+        return 2L * Integer.BYTES + combinations.binomial(numberOfCities - 1, subsetSize) * subsetSize * bytesPerEntry;
+    }
+
+    private boolean readLayer(DataInputStream input, int subsetSize) throws IOException {
+        if (subsetSize >= numberOfCities || input.readInt() != subsetSize) {
+            return false;
+        }
+
+        var layerSize = combinations.binomial(numberOfCities - 1, subsetSize);
+        var others = combinations.unrank(0, subsetSize);
+
+        for (long i = 0; i < layerSize; i++, others = Combinations.next(others)) {
+            for (var cities = others; cities != 0; cities &= cities - 1) {
+                var index = others * cityStride + Integer.numberOfTrailingZeros(cities);
+
+                memoryTable.set(index, fitsInChars ? input.readChar() : input.readInt());
+
+                if (parentTable != null) {
+                    parentTable[index] = input.readByte();
+                }
+            }
+        }
+
+        return input.readInt() == subsetSize;
+    }
+
+    // O(1), o checkpoint não serve mais depois que o tour é descoberto
+    void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
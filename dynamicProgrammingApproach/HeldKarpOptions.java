@@ -0,0 +1,77 @@
+package dynamicProgrammingApproach;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+public class HeldKarpOptions {
+    private long memoryBudgetInBytes;
+    private boolean isParallel;
+    private boolean hasParentTable;
+    private Path checkpointFile;
+    private long checkpointIntervalInMillis;
+
+    public HeldKarpOptions() {
+        this.memoryBudgetInBytes = Runtime.getRuntime().maxMemory();
+        this.isParallel = false;
+        this.hasParentTable = true;
+        this.checkpointFile = null;
+        this.checkpointIntervalInMillis = 0;
+    }
+
+    public long getMemoryBudgetInBytes() {
+        return memoryBudgetInBytes;
+    }
+
+    // O(1), o solver se recusa a alocar uma tabela maior que esse limite
+    public HeldKarpOptions withMemoryBudgetInBytes(long memoryBudgetInBytes) {
+        if (memoryBudgetInBytes <= 0) {
+            throw new IllegalArgumentException("The memory budget must be greather than 0");
+        }
+
+        this.memoryBudgetInBytes = memoryBudgetInBytes;
+        return this;
+    }
+
+    public boolean isParallel() {
+        return isParallel;
+    }
+
+    // O(1), preenche cada camada de subconjuntos com todos os núcleos
+    public HeldKarpOptions withParallelLayers(boolean isParallel) {
+        this.isParallel = isParallel;
+        return this;
+    }
+
+    public boolean hasParentTable() {
+        return hasParentTable;
+    }
+
+    // O(1), guarda um byte por estado com a cidade anterior escolhida, o que
+    // deixa a reconstrução do tour linear. Sem ela a tabela ocupa menos
+    // memória e o tour é recuperado refazendo as comparações
+    public HeldKarpOptions withParentTable(boolean hasParentTable) {
+        this.hasParentTable = hasParentTable;
+        return this;
+    }
+
+    public Path getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public long getCheckpointIntervalInMillis() {
+        return checkpointIntervalInMillis;
+    }
+
+    // O(1), grava as camadas completas nesse arquivo sempre que pelo menos
+    // intervalInMillis tiverem passado desde a última gravação. Com intervalo
+    // 0 toda camada é gravada assim que termina
+    public HeldKarpOptions withCheckpoint(Path checkpointFile, long intervalInMillis) {
+        if (intervalInMillis < 0) {
+            throw new IllegalArgumentException("The checkpoint interval must not be negative");
+        }
+
+        this.checkpointFile = Objects.requireNonNull(checkpointFile);
+        this.checkpointIntervalInMillis = intervalInMillis;
+        return this;
+    }
+}
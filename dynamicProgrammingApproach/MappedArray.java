@@ -0,0 +1,89 @@
+package dynamicProgrammingApproach;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Vetor de tamanho fixo guardado em um arquivo mapeado em memória. Como um
+// MappedByteBuffer é indexado por int, o arquivo é mapeado em blocos de 1 GB
+class MappedArray implements Closeable {
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    private final Path file;
+    private final FileChannel channel;
+    private MappedByteBuffer[] chunks;
+
+    private MappedArray(Path file, FileChannel channel, MapMode mode, long sizeInBytes) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.chunks = new MappedByteBuffer[(int) ((sizeInBytes + CHUNK_MASK) >>> CHUNK_BITS)];
+
+        for (int i = 0; i < chunks.length; i++) {
+            var start = (long) i << CHUNK_BITS;
+            chunks[i] = channel.map(mode, start, Math.min(CHUNK_MASK + 1, sizeInBytes - start));
+        }
+    }
+
+    // O(1), cria (ou sobrescreve) o arquivo com espaço para numberOfElements
+    // elementos de elementSize bytes
+    static MappedArray create(Path file, long numberOfElements, int elementSize) throws IOException {
+        var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+        return new MappedArray(file, channel, MapMode.READ_WRITE, numberOfElements * elementSize);
+    }
+
+    // O(1), abre um arquivo já escrito apenas para leitura
+    static MappedArray open(Path file) throws IOException {
+        var channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        return new MappedArray(file, channel, MapMode.READ_ONLY, channel.size());
+    }
+
+    int getInt(long index) {
+        var offset = index * Integer.BYTES;
+        return chunks[(int) (offset >>> CHUNK_BITS)].getInt((int) (offset & CHUNK_MASK));
+    }
+
+    void putInt(long index, int value) {
+        var offset = index * Integer.BYTES;
+        chunks[(int) (offset >>> CHUNK_BITS)].putInt((int) (offset & CHUNK_MASK), value);
+    }
+
+    byte getByte(long index) {
+        return chunks[(int) (index >>> CHUNK_BITS)].get((int) (index & CHUNK_MASK));
+    }
+
+    void putByte(long index, byte value) {
+        chunks[(int) (index >>> CHUNK_BITS)].put((int) (index & CHUNK_MASK), value);
+    }
+
+    // O(tamanho), garante que o conteúdo chegou ao disco
+    void flush() {
+        for (var chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    // solta as referências aos blocos mapeados, que só são desmapeados
+    // quando o coletor de lixo os recolhe, então nenhum acesso é válido
+    // depois de fechar
+    @Override
+    public void close() throws IOException {
+        chunks = new MappedByteBuffer[0];
+        channel.close();
+    }
+
+    // apaga o arquivo depois de fechar, o espaço no disco volta quando os
+    // blocos já sem referência forem desmapeados
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+}
@@ -0,0 +1,315 @@
+package dynamicProgrammingApproach;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import common.DistanceOracle;
+import common.Exceptions;
+
+// Held-Karp fora da memória: a camada de subconjuntos de tamanho k só
+// depende da de tamanho k - 1, então apenas essas duas camadas de custos
+// ficam mapeadas, cada uma em seu arquivo. Cada camada guarda, para cada
+// subconjunto das n - 1 cidades fora a inicial (na ordem colexicográfica)
+// e para cada cidade dele, o custo mínimo e a cidade anterior. Os arquivos
+// de pais ficam no disco até a reconstrução do tour. Com n = 30 o maior
+// par de camadas de custos é o de k = 14 e 15, com C(29, 14) * 14 +
+// C(29, 15) * 15 = 2,25 bilhões de ints, cerca de 9 GB, e os arquivos de
+// pais somam 29 * 2^28 bytes, cerca de 7,8 GB
+public class OutOfCoreHeldKarp {
+    // o subconjunto das outras n - 1 cidades precisa caber em um int
+    public static final int MAXIMUM_NUMBER_OF_CITIES = 32;
+
+    private static final int PARALLEL_BLOCK_SIZE = 1 << 12;
+
+    private final int numberOfCities;
+    private final int startingNodeIndex;
+    private final int[] distancesTo;
+    private final Path directory;
+    private final boolean isParallel;
+    private final Combinations combinations;
+    private final List<Integer> tour;
+    private final long[] layerTimesInNanos;
+
+    private int minimumTourCost;
+    private int lastCityOffset;
+    private boolean wasMinimumTourAlreadyDiscovered;
+
+    public OutOfCoreHeldKarp(DistanceOracle distanceMatrix, Path directory) {
+        this(distanceMatrix, directory, new HeldKarpOptions());
+    }
+
+    // O(n^2), copia as distâncias do mesmo jeito que o DynamicProgrammingApproach
+    public OutOfCoreHeldKarp(DistanceOracle distanceMatrix, Path directory, HeldKarpOptions options) {
+        Objects.requireNonNull(distanceMatrix);
+        Objects.requireNonNull(options);
+
+        this.numberOfCities = distanceMatrix.getNumberOfCities();
+
+        Exceptions.throwIfNegativeOrEqualTo0(numberOfCities, "number of cities");
+        Exceptions.throwIfGreatherThan(numberOfCities, MAXIMUM_NUMBER_OF_CITIES, "number of cities");
+
+        this.startingNodeIndex = 0;
+        this.distancesTo = new int[numberOfCities * numberOfCities];
+        this.directory = Objects.requireNonNull(directory);
+        this.isParallel = options.isParallel();
+        this.combinations = new Combinations(numberOfCities - 1);
+        this.tour = new ArrayList<>();
+        this.layerTimesInNanos = new long[numberOfCities];
+        this.minimumTourCost = Integer.MAX_VALUE;
+        this.lastCityOffset = -1;
+        this.wasMinimumTourAlreadyDiscovered = false;
+
+        for (int to = 0; to < numberOfCities; to++) {
+            for (int from = 0; from < numberOfCities; from++) {
+                distancesTo[to * numberOfCities + from] = distanceMatrix.getDistance(from, to);
+            }
+        }
+    }
+
+    public List<Integer> getTour() {
+        if (!wasMinimumTourAlreadyDiscovered) {
+            discoverMinimumTour();
+        }
+
+        return tour;
+    }
+
+    public int getTourCost() {
+        if (!wasMinimumTourAlreadyDiscovered) {
+            discoverMinimumTour();
+        }
+
+        return minimumTourCost;
+    }
+
+    // O(n), tempo gasto em cada camada, indexado pelo tamanho do subconjunto
+    public long[] getLayerTimesInNanos() {
+        return layerTimesInNanos.clone();
+    }
+
+    // O(C(n - 1, k) * k) entradas na camada k
+    private long layerLength(int subsetSize) {
+        return combinations.binomial(numberOfCities - 1, subsetSize) * subsetSize;
+    }
+
+    private Path costsFile(int subsetSize) {
+        return directory.resolve("held-karp-" + numberOfCities + "-layer-" + subsetSize + ".costs");
+    }
+
+    private Path parentsFile(int subsetSize) {
+        return directory.resolve("held-karp-" + numberOfCities + "-layer-" + subsetSize + ".parents");
+    }
+
+    // O(2^n * n^2) de processamento, com no máximo duas camadas de custos
+    // mapeadas ao mesmo tempo
+    private void discoverMinimumTour() {
+        if (wasMinimumTourAlreadyDiscovered) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(directory);
+
+            try {
+                if (numberOfCities == 1) {
+                    minimumTourCost = 0;
+                } else {
+                    var lastLayer = fillLayersOnDisk();
+
+                    try {
+                        connectTourBackToStartingNodeAndSetMinimumCost(lastLayer);
+                    } finally {
+                        lastLayer.delete();
+                    }
+                }
+
+                followParentFilesAndFillTour();
+            } finally {
+                deleteParentFiles();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        wasMinimumTourAlreadyDiscovered = true;
+    }
+
+    // O(2^n * n^2), a camada 1 vem direto das distâncias a partir da cidade
+    // inicial e cada camada seguinte é gerada a partir da anterior, que é
+    // apagada logo depois
+    private MappedArray fillLayersOnDisk() throws IOException {
+        var previousCosts = MappedArray.create(costsFile(1), layerLength(1), Integer.BYTES);
+        var isFilled = false;
+
+        try (var parents = MappedArray.create(parentsFile(1), layerLength(1), Byte.BYTES)) {
+            for (int endOffset = 0; endOffset < numberOfCities - 1; endOffset++) {
+                // o subconjunto {end} está na posição end da ordem colexicográfica
+                previousCosts.putInt(endOffset, distancesTo[(endOffset + 1) * numberOfCities + startingNodeIndex]);
+                parents.putByte(endOffset, (byte) -1);
+            }
+
+            isFilled = true;
+        } finally {
+            if (!isFilled) {
+                previousCosts.delete();
+            }
+        }
+
+        for (int subsetSize = 2; subsetSize < numberOfCities; subsetSize++) {
+            var start = System.nanoTime();
+
+            previousCosts = fillNextLayerOnDisk(subsetSize, previousCosts);
+            layerTimesInNanos[subsetSize] = System.nanoTime() - start;
+        }
+
+        return previousCosts;
+    }
+
+    // O(C(n - 1, k) * k^2), a camada anterior é apagada mesmo quando a nova
+    // falha, e a nova só é devolvida quando foi preenchida por inteiro
+    private MappedArray fillNextLayerOnDisk(int subsetSize, MappedArray previousCosts) throws IOException {
+        try {
+            var currentCosts = MappedArray.create(costsFile(subsetSize), layerLength(subsetSize), Integer.BYTES);
+            var isFilled = false;
+
+            try (var parents = MappedArray.create(parentsFile(subsetSize), layerLength(subsetSize), Byte.BYTES)) {
+                fillLayer(subsetSize, previousCosts, currentCosts, parents);
+                parents.flush();
+                isFilled = true;
+            } finally {
+                if (!isFilled) {
+                    currentCosts.delete();
+                }
+            }
+
+            return currentCosts;
+        } finally {
+            previousCosts.delete();
+        }
+    }
+
+    // O(C(n - 1, k) * k^2), no modo paralelo a camada é dividida em blocos
+    // contíguos de posições, que escrevem em regiões disjuntas dos arquivos
+    private void fillLayer(int subsetSize, MappedArray previousCosts, MappedArray currentCosts, MappedArray parents) {
+        var layerSize = combinations.binomial(numberOfCities - 1, subsetSize);
+
+        if (!isParallel || layerSize < PARALLEL_BLOCK_SIZE) {
+            fillBlock(subsetSize, 0, layerSize, previousCosts, currentCosts, parents);
+            return;
+        }
+
+        var numberOfBlocks = (int) ((layerSize + PARALLEL_BLOCK_SIZE - 1) / PARALLEL_BLOCK_SIZE);
+
+        IntStream.range(0, numberOfBlocks).parallel().forEach(block -> {
+            var firstRank = (long) block * PARALLEL_BLOCK_SIZE;
+            fillBlock(subsetSize, firstRank, Math.min(PARALLEL_BLOCK_SIZE, layerSize - firstRank), previousCosts,
+                    currentCosts, parents);
+        });
+    }
+
+    // O(quantidade * k^2), a entrada (subconjunto, cidade) fica em
+    // rank(subconjunto) * k + posição da cidade entre os bits do subconjunto
+    private void fillBlock(int subsetSize, long firstRank, long count, MappedArray previousCosts,
+            MappedArray currentCosts, MappedArray parents) {
+        var others = combinations.unrank(firstRank, subsetSize);
+
+        for (long i = 0; i < count; i++, others = Combinations.next(others)) {
+            var entries = (firstRank + i) * subsetSize;
+            var nextPosition = 0;
+
+            for (var nextCandidates = others; nextCandidates != 0; nextCandidates &= nextCandidates - 1, nextPosition++) {
+                var nextOffset = Integer.numberOfTrailingZeros(nextCandidates);
+                var othersWithoutNext = others ^ (1 << nextOffset);
+                var previousEntries = combinations.rank(othersWithoutNext) * (subsetSize - 1);
+                var distancesToNext = (nextOffset + 1) * numberOfCities + 1;
+                var minimumDistance = Integer.MAX_VALUE;
+                var bestEndOffset = -1;
+                var endPosition = 0;
+
+                for (var endCandidates = othersWithoutNext; endCandidates != 0; endCandidates &= endCandidates - 1, endPosition++) {
+                    var endOffset = Integer.numberOfTrailingZeros(endCandidates);
+                    var newDistance = previousCosts.getInt(previousEntries + endPosition)
+                            + distancesTo[distancesToNext + endOffset];
+
+                    if (newDistance < minimumDistance) {
+                        minimumDistance = newDistance;
+                        bestEndOffset = endOffset;
+                    }
+                }
+
+                currentCosts.putInt(entries + nextPosition, minimumDistance);
+                parents.putByte(entries + nextPosition, (byte) bestEndOffset);
+            }
+        }
+    }
+
+    // O(n), a última camada tem um único subconjunto, com todas as cidades
+    private void connectTourBackToStartingNodeAndSetMinimumCost(MappedArray lastLayer) {
+        for (int offset = 0; offset < numberOfCities - 1; offset++) {
+            var tourCost = lastLayer.getInt(offset) + distancesTo[startingNodeIndex * numberOfCities + offset + 1];
+
+            if (tourCost < minimumTourCost) {
+                minimumTourCost = tourCost;
+                lastCityOffset = offset;
+            }
+        }
+    }
+
+    // O(n^2), segue as cidades anteriores camada por camada a partir da
+    // última cidade do tour mínimo, apagando cada arquivo de pais lido
+    private void followParentFilesAndFillTour() throws IOException {
+        var state = (1 << (numberOfCities - 1)) - 1;
+        var cityOffset = lastCityOffset;
+
+        tour.add(startingNodeIndex + 1);
+
+        for (int subsetSize = numberOfCities - 1; subsetSize > 0; subsetSize--) {
+            var position = Integer.bitCount(state & ((1 << cityOffset) - 1));
+            var parents = MappedArray.open(parentsFile(subsetSize));
+            int previousOffset;
+
+            try {
+                previousOffset = parents.getByte(combinations.rank(state) * subsetSize + position);
+            } finally {
+                parents.delete();
+            }
+
+            tour.add(cityOffset + 2);
+
+            state = state ^ (1 << cityOffset);
+            cityOffset = previousOffset;
+        }
+
+        tour.add(startingNodeIndex + 1);
+        Collections.reverse(tour);
+    }
+
+    // O(n), apaga os arquivos de pais que sobraram quando a busca falhou no
+    // meio, depois de uma reconstrução completa nenhum deles existe mais
+    private void deleteParentFiles() throws IOException {
+        for (int subsetSize = 1; subsetSize < numberOfCities; subsetSize++) {
+            Files.deleteIfExists(parentsFile(subsetSize));
+        }
+    }
+
+    public void tryStoreInfosInFile(String fileName) {
+        Exceptions.throwIfNullOrEmpty(fileName, "file name");
+
+        try (var writer = new BufferedWriter(new FileWriter(fileName))) {
+            writer.write(tour.toString());
+            writer.newLine();
+            writer.write(Integer.toString(minimumTourCost));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package heuristics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import common.DistanceOracle;
+
+// Tour guardado como vetor de cidades (0-based, sem repetir a primeira no
+// final) junto com a posição de cada cidade no vetor, o que deixa sucessor,
+// antecessor e posição em O(1) e a inversão de um trecho proporcional ao
+// tamanho do menor dos dois lados
+public class ArrayTour {
+    private final int[] cities;
+    private final int[] positions;
+
+    // O(n), o vetor recebido é copiado
+    public ArrayTour(int[] tour) {
+        this.cities = Objects.requireNonNull(tour).clone();
+        this.positions = new int[cities.length];
+
+        for (int position = 0; position < cities.length; position++) {
+            positions[cities[position]] = position;
+        }
+    }
+
+    // O(n), a partir do formato devolvido pelos solvers: cidades 1-based com
+    // a primeira repetida no final
+    public static ArrayTour fromClosedPath(List<Integer> path) {
+        var tour = new int[path.size() - 1];
+
+        for (int i = 0; i < tour.length; i++) {
+            tour[i] = path.get(i) - 1;
+        }
+
+        return new ArrayTour(tour);
+    }
+
+    public int size() {
+        return cities.length;
+    }
+
+    // O(1)
+    public int cityAt(int position) {
+        return cities[position];
+    }
+
+    // O(1)
+    public int positionOf(int city) {
+        return positions[city];
+    }
+
+    // O(1)
+    public int next(int city) {
+        var position = positions[city] + 1;
+        return cities[position == cities.length ? 0 : position];
+    }
+
+    // O(1)
+    public int previous(int city) {
+        var position = positions[city];
+        return cities[position == 0 ? cities.length - 1 : position - 1];
+    }
+
+    // O(min(k, n - k)), inverte o trecho que vai da posição from até a
+    // posição to andando para frente (dando a volta no fim do vetor se
+    // preciso). Como a distância é simétrica, inverter o trecho complementar
+    // gera o mesmo ciclo, então sempre é invertido o menor dos dois
+    public void reverse(int from, int to) {
+        var length = cities.length;
+        var segmentLength = to - from + 1;
+
+        if (segmentLength <= 0) {
+            segmentLength += length;
+        }
+
+        if (2 * segmentLength > length) {
+            var complementFrom = to + 1 == length ? 0 : to + 1;
+            to = from == 0 ? length - 1 : from - 1;
+            from = complementFrom;
+            segmentLength = length - segmentLength;
+        }
+
+        for (int swaps = segmentLength / 2; swaps > 0; swaps--) {
+            var fromCity = cities[from];
+            var toCity = cities[to];
+
+            cities[from] = toCity;
+            positions[toCity] = from;
+            cities[to] = fromCity;
+            positions[fromCity] = to;
+
+            from = from + 1 == length ? 0 : from + 1;
+            to = to == 0 ? length - 1 : to - 1;
+        }
+    }
+
+    // O(min(k, n - k)), troca as arestas (a, b) e (c, d) pelas arestas
+    // (a, c) e (b, d). b precisa ser vizinho de a no mesmo sentido em que d é
+    // vizinho de c: ou b = next(a) e d = next(c), ou b = previous(a) e
+    // d = previous(c). Como uma inversão pode trocar o sentido do vetor,
+    // movimentos compostos devem ser descritos por cidades e não por posições
+    public void twoOptMove(int a, int b, int c, int d) {
+        if (next(a) == b) {
+            reverse(positions[b], positions[c]);
+        } else {
+            reverse(positions[c], positions[b]);
+        }
+    }
+
+    // O(1), troca as posições das cidades a e b
+    public void swapCities(int a, int b) {
+        var aPosition = positions[a];
+        var bPosition = positions[b];
+
+        cities[aPosition] = b;
+        positions[b] = aPosition;
+        cities[bPosition] = a;
+        positions[a] = bPosition;
+    }
+
+    // O(firstLength + secondLength), troca de lugar os trechos adjacentes
+    // que começam na posição from (dando a volta no fim do vetor se preciso),
+    // sem mexer no resto: A B C D vira A C B D. É o double-bridge, que não
+    // pode ser desfeito por movimentos sequenciais de 2-opt
+    public void swapAdjacentSegments(int from, int firstLength, int secondLength) {
+        reversePositions(from, firstLength);
+        reversePositions(from + firstLength, secondLength);
+        reversePositions(from, firstLength + secondLength);
+    }
+
+    private void reversePositions(int from, int length) {
+        var start = from % cities.length;
+        var end = (from + length - 1) % cities.length;
+
+        for (int swaps = length / 2; swaps > 0; swaps--) {
+            var startCity = cities[start];
+            var endCity = cities[end];
+
+            cities[start] = endCity;
+            positions[endCity] = start;
+            cities[end] = startCity;
+            positions[startCity] = end;
+
+            start = start + 1 == cities.length ? 0 : start + 1;
+            end = end == 0 ? cities.length - 1 : end - 1;
+        }
+    }
+
+    // O(n)
+    public int cost(DistanceOracle distanceMatrix) {
+        var cost = 0;
+
+        for (int position = 0; position < cities.length; position++) {
+            cost += distanceMatrix.getDistance(cities[position], cities[position + 1 == cities.length ? 0 : position + 1]);
+        }
+
+        return cost;
+    }
+
+    // O(n), cópia do vetor de cidades a partir da posição 0
+    public int[] toArray() {
+        return cities.clone();
+    }
+
+    // O(n), o mesmo que o anterior sem alocar
+    public void copyTo(int[] destination) {
+        System.arraycopy(cities, 0, destination, 0, cities.length);
+    }
+
+    // O(n), no formato dos solvers: começa e termina na cidade 1
+    public List<Integer> toClosedPath() {
+        var path = new ArrayList<Integer>(cities.length + 1);
+        var start = positions[0];
+
+        for (int i = 0; i < cities.length; i++) {
+            path.add(cities[(start + i) % cities.length] + 1);
+        }
+
+        path.add(1);
+
+        return path;
+    }
+}
@@ -0,0 +1,516 @@
+package heuristics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.stream.IntStream;
+
+import common.CoordinateDistances;
+import common.DistanceOracle;
+import common.Exceptions;
+
+// Listas de candidatos das buscas locais: para cada cidade, k cidades
+// escolhidas pela estratégia, guardadas em ordem crescente de distância num
+// único vetor onde os candidatos da cidade c ficam em c * k até c * k + k - 1
+// A ordem por distância é a que as buscas usam para parar cedo, qualquer
+// que seja o critério que escolheu os candidatos
+public class CandidateSet {
+    public static final int DEFAULT_CANDIDATES_PER_CITY = 10;
+
+    // cidades processadas por cada tarefa no cálculo paralelo
+    private static final int PARALLEL_BLOCK_SIZE = 256;
+
+    private static final int MAGIC = 0x43414e44;
+    private static final int VERSION = 1;
+
+    // listas já calculadas de cada instância, por estratégia e tamanho. A
+    // instância é chave fraca, então as listas somem junto com ela
+    private static final Map<DistanceOracle, Map<String, CandidateSet>> CACHE = new WeakHashMap<>();
+
+    private final int numberOfCities;
+    private final int candidatesPerCity;
+    private final int[] candidates;
+    private final CandidateStrategy strategy;
+
+    private CandidateSet(int numberOfCities, int candidatesPerCity, int[] candidates, CandidateStrategy strategy) {
+        this.numberOfCities = numberOfCities;
+        this.candidatesPerCity = candidatesPerCity;
+        this.candidates = candidates;
+        this.strategy = strategy;
+    }
+
+    // Calcula as listas com a estratégia dada, sem passar pelo cache
+    public static CandidateSet of(DistanceOracle distanceMatrix, CandidateStrategy strategy, int candidatesPerCity) {
+        Objects.requireNonNull(strategy);
+
+        switch (strategy) {
+            case QUADRANT:
+                if (!(distanceMatrix instanceof CoordinateDistances)) {
+                    throw new IllegalArgumentException("Quadrant neighbors need the coordinates of the cities");
+                }
+
+                return quadrant((CoordinateDistances) distanceMatrix, candidatesPerCity);
+            case ALPHA_NEARNESS:
+                return alphaNearness(distanceMatrix, candidatesPerCity);
+            default:
+                return nearest(distanceMatrix, candidatesPerCity);
+        }
+    }
+
+    // O(1) quando as listas dessa instância já foram calculadas
+    public static CandidateSet cached(DistanceOracle distanceMatrix, CandidateStrategy strategy,
+            int candidatesPerCity) {
+        var key = strategy + "/" + candidatesPerCity;
+
+        synchronized (CACHE) {
+            var candidateSet = CACHE.computeIfAbsent(Objects.requireNonNull(distanceMatrix), oracle -> new HashMap<>())
+                    .get(key);
+
+            if (candidateSet != null) {
+                return candidateSet;
+            }
+        }
+
+        var candidateSet = of(distanceMatrix, strategy, candidatesPerCity);
+
+        synchronized (CACHE) {
+            CACHE.get(distanceMatrix).putIfAbsent(key, candidateSet);
+            return CACHE.get(distanceMatrix).get(key);
+        }
+    }
+
+    // Lê as listas do arquivo quando ele foi gravado para as mesmas cidades,
+    // estratégia e tamanho, senão calcula e grava para a próxima execução
+    public static CandidateSet loadOrCompute(Path file, DistanceOracle distanceMatrix, CandidateStrategy strategy,
+            int candidatesPerCity) {
+        if (Files.exists(file)) {
+            try {
+                var candidateSet = readFrom(file, distanceMatrix);
+
+                if (candidateSet.strategy == strategy
+                        && candidateSet.candidatesPerCity == clamp(candidatesPerCity, candidateSet.numberOfCities)) {
+                    return candidateSet;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // arquivo de outra instância ou corrompido, é recalculado
+            }
+        }
+
+        var candidateSet = of(distanceMatrix, strategy, candidatesPerCity);
+
+        try {
+            candidateSet.writeTo(file, distanceMatrix);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return candidateSet;
+    }
+
+    private static int clamp(int candidatesPerCity, int numberOfCities) {
+        if (candidatesPerCity <= 0) {
+            throw new IllegalArgumentException("The number of candidates per city must be greather than 0");
+        }
+
+        return Math.min(candidatesPerCity, Math.max(numberOfCities - 1, 0));
+    }
+
+    // O(n^2 * k / p) lendo as linhas da matriz em paralelo, ou O(n k log n / p)
+    // com a árvore k-d quando as coordenadas estão disponíveis
+    public static CandidateSet nearest(DistanceOracle distanceMatrix, int candidatesPerCity) {
+        Objects.requireNonNull(distanceMatrix);
+
+        var numberOfCities = distanceMatrix.getNumberOfCities();
+        var k = clamp(candidatesPerCity, numberOfCities);
+        var candidates = new int[numberOfCities * k];
+
+        if (distanceMatrix instanceof CoordinateDistances) {
+            var tree = new KDTree((CoordinateDistances) distanceMatrix);
+
+            forEachBlock(numberOfCities, (from, to) -> {
+                var view = tree.copyForQueries();
+                var found = new int[k];
+
+                for (int city = from; city < to; city++) {
+                    view.kNearest(city, k, found);
+                    System.arraycopy(found, 0, candidates, city * k, k);
+                }
+            });
+        } else {
+            forEachBlock(numberOfCities, (from, to) -> {
+                var keys = new long[k];
+
+                for (int city = from; city < to; city++) {
+                    var found = 0;
+
+                    for (int other = 0; other < numberOfCities; other++) {
+                        if (other != city) {
+                            found = insert(keys, 0, candidates, city * k, found, k,
+                                    distanceMatrix.getDistance(city, other), other);
+                        }
+                    }
+                }
+            });
+        }
+
+        return new CandidateSet(numberOfCities, k, candidates, CandidateStrategy.NEAREST);
+    }
+
+    // O(n^2 / p), as k / 4 cidades mais próximas em cada quadrante em volta
+    // da cidade, completadas pelas mais próximas no geral quando algum
+    // quadrante tem poucas cidades. Evita listas que só olham para um lado
+    // em instâncias com aglomerados
+    public static CandidateSet quadrant(CoordinateDistances coordinates, int candidatesPerCity) {
+        Objects.requireNonNull(coordinates);
+
+        var xs = coordinates.getXs();
+        var ys = coordinates.getYs();
+        var numberOfCities = xs.length;
+        var k = clamp(candidatesPerCity, numberOfCities);
+        var perQuadrant = Math.max(1, k / 4);
+        var candidates = new int[numberOfCities * k];
+
+        forEachBlock(numberOfCities, (from, to) -> {
+            var quadrantKeys = new long[4 * perQuadrant];
+            var quadrantCities = new int[4 * perQuadrant];
+            var quadrantSizes = new int[4];
+            var nearestKeys = new long[k];
+            var nearestCities = new int[k];
+            var chosenKeys = new long[k];
+
+            for (int city = from; city < to; city++) {
+                var nearestSize = 0;
+                Arrays.fill(quadrantSizes, 0);
+
+                for (int other = 0; other < numberOfCities; other++) {
+                    if (other == city) {
+                        continue;
+                    }
+
+                    var distance = coordinates.getDistance(city, other);
+                    var quadrant = quadrantOf((long) xs[other] - xs[city], (long) ys[other] - ys[city]);
+
+                    quadrantSizes[quadrant] = insert(quadrantKeys, quadrant * perQuadrant, quadrantCities,
+                            quadrant * perQuadrant, quadrantSizes[quadrant], perQuadrant, distance, other);
+                    nearestSize = insert(nearestKeys, 0, nearestCities, 0, nearestSize, k, distance, other);
+                }
+
+                var chosen = 0;
+
+                for (int quadrant = 0; quadrant < 4; quadrant++) {
+                    for (int i = 0; i < quadrantSizes[quadrant] && chosen < k; i++) {
+                        var index = quadrant * perQuadrant + i;
+                        chosen = insert(chosenKeys, 0, candidates, city * k, chosen, k, quadrantKeys[index],
+                                quadrantCities[index]);
+                    }
+                }
+
+                for (int i = 0; i < nearestSize && chosen < k; i++) {
+                    if (!contains(candidates, city * k, chosen, nearestCities[i])) {
+                        chosen = insert(chosenKeys, 0, candidates, city * k, chosen, k, nearestKeys[i],
+                                nearestCities[i]);
+                    }
+                }
+            }
+        });
+
+        return new CandidateSet(numberOfCities, k, candidates, CandidateStrategy.QUADRANT);
+    }
+
+    private static int quadrantOf(long xDifference, long yDifference) {
+        if (xDifference > 0 && yDifference >= 0) {
+            return 0;
+        }
+
+        if (xDifference <= 0 && yDifference > 0) {
+            return 1;
+        }
+
+        if (xDifference < 0 && yDifference <= 0) {
+            return 2;
+        }
+
+        return yDifference < 0 ? 3 : 0;
+    }
+
+    // O(n^2 / p), as k cidades com a menor alpha-proximidade em relação à
+    // 1-tree mínima, onde a cidade 0 é a especial: alpha(i, j) é quanto a
+    // 1-tree mínima que é obrigada a usar a aresta (i, j) fica mais cara que
+    // a mínima. As arestas da 1-tree têm alpha 0, então ela está sempre nas
+    // listas. Empates são desfeitos pela distância
+    public static CandidateSet alphaNearness(DistanceOracle distanceMatrix, int candidatesPerCity) {
+        return alphaNearness(distanceMatrix, distanceMatrix, candidatesPerCity);
+    }
+
+    // O mesmo que o anterior com a 1-tree e os valores alpha calculados sobre
+    // outras distâncias, como as transformadas pelas penalidades pi do
+    // HeldKarpBound, que dão listas bem melhores que as do vizinho mais
+    // próximo. Os candidatos continuam ordenados pelas distâncias originais
+    public static CandidateSet alphaNearness(DistanceOracle distanceMatrix, DistanceOracle transformedDistances,
+            int candidatesPerCity) {
+        Objects.requireNonNull(distanceMatrix);
+        Objects.requireNonNull(transformedDistances);
+
+        var numberOfCities = distanceMatrix.getNumberOfCities();
+
+        Exceptions.throwIfNotEqual(numberOfCities, transformedDistances.getNumberOfCities(), "number of cities",
+                "number of cities of the transformed distances");
+
+        if (numberOfCities < 3) {
+            var candidateSet = nearest(distanceMatrix, candidatesPerCity);
+            return new CandidateSet(numberOfCities, candidateSet.candidatesPerCity, candidateSet.candidates,
+                    CandidateStrategy.ALPHA_NEARNESS);
+        }
+
+        var k = clamp(candidatesPerCity, numberOfCities);
+        var candidates = new int[numberOfCities * k];
+        var special = 0;
+        var parents = new PrimMST(transformedDistances, 1, special).getParents();
+        var order = new PreorderWalk(parents).getTour();
+        var secondShortest = secondShortestEdgeOf(transformedDistances, special);
+
+        forEachBlock(numberOfCities, (from, to) -> {
+            var beta = new int[numberOfCities];
+            var marks = new int[numberOfCities];
+            var keys = new long[k];
+
+            Arrays.fill(marks, -1);
+
+            for (int city = from; city < to; city++) {
+                var found = 0;
+
+                if (city == special) {
+                    for (int other = 1; other < numberOfCities; other++) {
+                        var alpha = Math.max(0, transformedDistances.getDistance(special, other) - secondShortest);
+                        found = insert(keys, 0, candidates, city * k, found, k,
+                                (long) alpha << 32 | distanceMatrix.getDistance(special, other), other);
+                    }
+                } else {
+                    fillBeta(transformedDistances, parents, order, city, beta, marks);
+
+                    for (int other = 0; other < numberOfCities; other++) {
+                        if (other == city) {
+                            continue;
+                        }
+
+                        var distance = transformedDistances.getDistance(city, other);
+                        var alpha = other == special ? Math.max(0, distance - secondShortest) : distance - beta[other];
+                        found = insert(keys, 0, candidates, city * k, found, k,
+                                (long) alpha << 32 | distanceMatrix.getDistance(city, other), other);
+                    }
+                }
+
+                sortByDistance(distanceMatrix, city, candidates, city * k, found);
+            }
+        });
+
+        return new CandidateSet(numberOfCities, k, candidates, CandidateStrategy.ALPHA_NEARNESS);
+    }
+
+    // O(n), a segunda menor aresta da cidade especial, que é a mais cara das
+    // duas que ela tem na 1-tree
+    private static int secondShortestEdgeOf(DistanceOracle distanceMatrix, int special) {
+        var shortest = Integer.MAX_VALUE;
+        var second = Integer.MAX_VALUE;
+
+        for (int other = 0; other < distanceMatrix.getNumberOfCities(); other++) {
+            if (other == special) {
+                continue;
+            }
+
+            var distance = distanceMatrix.getDistance(special, other);
+
+            if (distance < shortest) {
+                second = shortest;
+                shortest = distance;
+            } else if (distance < second) {
+                second = distance;
+            }
+        }
+
+        return second;
+    }
+
+    // O(n), beta[j] é a maior aresta no caminho da árvore entre city e j:
+    // primeiro sobe de city até a raiz marcando o caminho, depois desce pelas
+    // outras cidades em pré-ordem, onde o pai sempre vem antes do filho
+    private static void fillBeta(DistanceOracle distanceMatrix, int[] parents, int[] order, int city, int[] beta,
+            int[] marks) {
+        beta[city] = Integer.MIN_VALUE;
+        marks[city] = city;
+
+        for (var node = city; parents[node] != -1; node = parents[node]) {
+            beta[parents[node]] = Math.max(beta[node], distanceMatrix.getDistance(node, parents[node]));
+            marks[parents[node]] = city;
+        }
+
+        for (var node : order) {
+            if (marks[node] != city && parents[node] != -1) {
+                beta[node] = Math.max(beta[parents[node]], distanceMatrix.getDistance(node, parents[node]));
+            }
+        }
+    }
+
+    // O(k^2), reordena os candidatos escolhidos por distância
+    private static void sortByDistance(DistanceOracle distanceMatrix, int city, int[] candidates, int offset,
+            int size) {
+        for (int i = 1; i < size; i++) {
+            var candidate = candidates[offset + i];
+            var distance = distanceMatrix.getDistance(city, candidate);
+            var j = i;
+
+            for (; j > 0 && distanceMatrix.getDistance(city, candidates[offset + j - 1]) > distance; j--) {
+                candidates[offset + j] = candidates[offset + j - 1];
+            }
+
+            candidates[offset + j] = candidate;
+        }
+    }
+
+    // O(k), insere value com a chave key entre os size menores já guardados,
+    // em ordem crescente de chave, e retorna o novo tamanho
+    private static int insert(long[] keys, int keyOffset, int[] values, int valueOffset, int size, int capacity,
+            long key, int value) {
+        if (size == capacity && (capacity == 0 || key >= keys[keyOffset + capacity - 1])) {
+            return size;
+        }
+
+        var i = size == capacity ? capacity - 1 : size++;
+
+        for (; i > 0 && keys[keyOffset + i - 1] > key; i--) {
+            keys[keyOffset + i] = keys[keyOffset + i - 1];
+            values[valueOffset + i] = values[valueOffset + i - 1];
+        }
+
+        keys[keyOffset + i] = key;
+        values[valueOffset + i] = value;
+
+        return size;
+    }
+
+    private static boolean contains(int[] values, int offset, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[offset + i] == value) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private interface Block {
+        void fill(int from, int to);
+    }
+
+    // divide as cidades em blocos contíguos processados em paralelo, cada
+    // um escrevendo só nas listas das suas cidades
+    private static void forEachBlock(int numberOfCities, Block block) {
+        var numberOfBlocks = (numberOfCities + PARALLEL_BLOCK_SIZE - 1) / PARALLEL_BLOCK_SIZE;
+
+        IntStream.range(0, numberOfBlocks).parallel().forEach(i -> block.fill(i * PARALLEL_BLOCK_SIZE,
+                Math.min(numberOfCities, (i + 1) * PARALLEL_BLOCK_SIZE)));
+    }
+
+    // O(n), identifica as cidades no arquivo: as coordenadas inteiras quando
+    // existem, senão uma amostra de 2n distâncias
+    private static int fingerprintOf(DistanceOracle distanceMatrix) {
+        if (distanceMatrix instanceof CoordinateDistances) {
+            var coordinates = (CoordinateDistances) distanceMatrix;
+            return 31 * Arrays.hashCode(coordinates.getXs()) + Arrays.hashCode(coordinates.getYs());
+        }
+
+        var numberOfCities = distanceMatrix.getNumberOfCities();
+        var hash = numberOfCities;
+
+        for (int city = 0; city < numberOfCities; city++) {
+            hash = 31 * hash + distanceMatrix.getDistance(city, (city + 1) % numberOfCities);
+            hash = 31 * hash + distanceMatrix.getDistance(city, numberOfCities - 1 - city);
+        }
+
+        return hash;
+    }
+
+    // O(n * k), formato binário: cabeçalho e depois os candidatos como int
+    public void writeTo(Path file, DistanceOracle distanceMatrix) throws IOException {
+        try (var output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(numberOfCities);
+            output.writeInt(candidatesPerCity);
+            output.writeInt(strategy.ordinal());
+            output.writeInt(fingerprintOf(distanceMatrix));
+
+            for (var candidate : candidates) {
+                output.writeInt(candidate);
+            }
+        }
+    }
+
+    // O(n * k), falha com IllegalStateException se o arquivo foi gravado
+    // para outras cidades ou tem valores que nenhum CandidateSet grava
+    public static CandidateSet readFrom(Path file, DistanceOracle distanceMatrix) throws IOException {
+        try (var input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IllegalStateException("The file " + file + " is not a candidate set");
+            }
+
+            var numberOfCities = input.readInt();
+            var candidatesPerCity = input.readInt();
+            var strategyOrdinal = input.readInt();
+
+            if (numberOfCities != distanceMatrix.getNumberOfCities()
+                    || input.readInt() != fingerprintOf(distanceMatrix)) {
+                throw new IllegalStateException("The candidate set " + file + " was computed for other cities");
+            }
+
+            if (strategyOrdinal < 0 || strategyOrdinal >= CandidateStrategy.values().length) {
+                throw new IllegalStateException("The candidate set " + file + " has an unknown strategy");
+            }
+
+            // o mesmo limite do clamp, 0 só quando não há outra cidade
+            if (candidatesPerCity < 0 || candidatesPerCity > Math.max(numberOfCities - 1, 0)
+                    || candidatesPerCity == 0 && numberOfCities > 1) {
+                throw new IllegalStateException("The candidate set " + file + " has an invalid number of candidates");
+            }
+
+            var strategy = CandidateStrategy.values()[strategyOrdinal];
+            var candidates = new int[numberOfCities * candidatesPerCity];
+
+            for (int i = 0; i < candidates.length; i++) {
+                candidates[i] = input.readInt();
+
+                if (candidates[i] < 0 || candidates[i] >= numberOfCities || candidates[i] == i / candidatesPerCity) {
+                    throw new IllegalStateException("The candidate set " + file + " has an invalid candidate");
+                }
+            }
+
+            return new CandidateSet(numberOfCities, candidatesPerCity, candidates, strategy);
+        }
+    }
+
+    public int getNumberOfCities() {
+        return numberOfCities;
+    }
+
+    public int getCandidatesPerCity() {
+        return candidatesPerCity;
+    }
+
+    public CandidateStrategy getStrategy() {
+        return strategy;
+    }
+
+    // O(1), i-ésimo candidato da cidade, em ordem crescente de distância
+    public int get(int city, int i) {
+        return candidates[city * candidatesPerCity + i];
+    }
+}
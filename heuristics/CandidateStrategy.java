@@ -0,0 +1,13 @@
+package heuristics;
+
+public enum CandidateStrategy {
+    // as k cidades mais próximas
+    NEAREST,
+
+    // as mais próximas em cada um dos quatro quadrantes em volta da cidade,
+    // precisa das coordenadas
+    QUADRANT,
+
+    // as k cidades com menor alpha-proximidade em relação à 1-tree mínima
+    ALPHA_NEARNESS
+}
@@ -0,0 +1,296 @@
+package heuristics;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import common.DistanceOracle;
+
+// Construção de Christofides sobre uma árvore geradora mínima já pronta:
+// emparelha as cidades de grau ímpar da árvore, junta as arestas do
+// emparelhamento às da árvore (todo grau fica par), percorre o circuito
+// euleriano com o algoritmo de Hierholzer e pula as cidades repetidas
+// O emparelhamento é guloso sobre os vizinhos mais próximos entre as
+// cidades ímpares, seguido de trocas entre pares de arestas, no lugar do
+// emparelhamento perfeito mínimo, que é O(n^3) e inviável para 10 mil cidades
+public class Christofides {
+    // vizinhos ímpares mais próximos considerados por cidade ímpar
+    private static final int CANDIDATES_PER_ODD_CITY = 10;
+
+    private final DistanceOracle distanceMatrix;
+    private final int[] parents;
+
+    // parents é a árvore geradora mínima, com -1 como pai da raiz, no mesmo
+    // formato do PrimMST
+    public Christofides(DistanceOracle distanceMatrix, int[] parents) {
+        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+        this.parents = Objects.requireNonNull(parents);
+    }
+
+    // O(m^2) para os vizinhos das m cidades ímpares, o resto é O(n log n)
+    // retorna o tour 0-based começando na cidade 0, sem repeti-la no final
+    public int[] getTour() {
+        var numberOfCities = parents.length;
+
+        if (numberOfCities < 3) {
+            var tour = new int[numberOfCities];
+
+            for (int city = 0; city < numberOfCities; city++) {
+                tour[city] = city;
+            }
+
+            return tour;
+        }
+
+        var mates = matchOddCities(oddCities());
+
+        return shortcut(eulerianCircuit(mates));
+    }
+
+    // O(n)
+    private int[] oddCities() {
+        var degrees = new int[parents.length];
+
+        for (int city = 0; city < parents.length; city++) {
+            if (parents[city] != -1) {
+                degrees[city]++;
+                degrees[parents[city]]++;
+            }
+        }
+
+        var numberOfOddCities = 0;
+
+        for (var degree : degrees) {
+            numberOfOddCities += degree & 1;
+        }
+
+        var odd = new int[numberOfOddCities];
+        var next = 0;
+
+        for (int city = 0; city < parents.length; city++) {
+            if ((degrees[city] & 1) == 1) {
+                odd[next++] = city;
+            }
+        }
+
+        return odd;
+    }
+
+    // Emparelhamento guloso: as arestas entre cada cidade ímpar e suas
+    // vizinhas ímpares mais próximas são ordenadas pelo peso e aceitas
+    // enquanto as duas pontas estiverem livres. As cidades que sobrarem são
+    // emparelhadas pela mais próxima ainda livre. Retorna o par de cada
+    // cidade (-1 para as de grau par)
+    private int[] matchOddCities(int[] odd) {
+        var mates = new int[parents.length];
+        var m = odd.length;
+        var k = Math.min(CANDIDATES_PER_ODD_CITY, m - 1);
+        var neighbors = new int[m * k];
+        var distances = new int[k];
+
+        Arrays.fill(mates, -1);
+
+        // O(m^2 * k) no pior caso, os k mais próximos por inserção
+        for (int i = 0; i < m; i++) {
+            var found = 0;
+
+            for (int j = 0; j < m; j++) {
+                if (j == i) {
+                    continue;
+                }
+
+                var distance = distanceMatrix.getDistance(odd[i], odd[j]);
+
+                if (found == k && distance >= distances[k - 1]) {
+                    continue;
+                }
+
+                var position = found == k ? k - 1 : found++;
+
+                for (; position > 0 && distances[position - 1] > distance; position--) {
+                    distances[position] = distances[position - 1];
+                    neighbors[i * k + position] = neighbors[i * k + position - 1];
+                }
+
+                distances[position] = distance;
+                neighbors[i * k + position] = j;
+            }
+        }
+
+        // O(m * k * log(m * k)), peso nos 32 bits altos e a aresta nos baixos
+        var edges = new long[m * k];
+
+        for (int i = 0; i < m; i++) {
+            for (int j = 0; j < k; j++) {
+                var distance = distanceMatrix.getDistance(odd[i], odd[neighbors[i * k + j]]);
+                edges[i * k + j] = ((long) distance << 32) | (i * k + j);
+            }
+        }
+
+        Arrays.sort(edges);
+
+        for (var edge : edges) {
+            var index = (int) edge;
+            var a = odd[index / k];
+            var b = odd[neighbors[index]];
+
+            if (mates[a] == -1 && mates[b] == -1) {
+                mates[a] = b;
+                mates[b] = a;
+            }
+        }
+
+        matchLeftovers(odd, mates);
+        improveMatching(odd, neighbors, k, mates);
+
+        return mates;
+    }
+
+    // O(r^2) para as r cidades ímpares que o guloso deixou sem par
+    private void matchLeftovers(int[] odd, int[] mates) {
+        for (var a : odd) {
+            if (mates[a] != -1) {
+                continue;
+            }
+
+            var best = -1;
+
+            for (var b : odd) {
+                if (b != a && mates[b] == -1
+                        && (best == -1 || distanceMatrix.getDistance(a, b) < distanceMatrix.getDistance(a, best))) {
+                    best = b;
+                }
+            }
+
+            mates[a] = best;
+            mates[best] = a;
+        }
+    }
+
+    // O(m * k) por passada: para cada par (a, mate(a)) e cada vizinho c de
+    // a, troca as arestas (a, b) e (c, d) por (a, c) e (b, d) quando isso
+    // diminui o peso do emparelhamento, até nenhuma troca melhorar
+    private void improveMatching(int[] odd, int[] neighbors, int k, int[] mates) {
+        var hasImproved = true;
+
+        while (hasImproved) {
+            hasImproved = false;
+
+            for (int i = 0; i < odd.length; i++) {
+                var a = odd[i];
+
+                for (int j = 0; j < k; j++) {
+                    var b = mates[a];
+                    var c = odd[neighbors[i * k + j]];
+                    var d = mates[c];
+
+                    if (c == b) {
+                        continue;
+                    }
+
+                    var current = distanceMatrix.getDistance(a, b) + distanceMatrix.getDistance(c, d);
+
+                    if (distanceMatrix.getDistance(a, c) + distanceMatrix.getDistance(b, d) < current) {
+                        mates[a] = c;
+                        mates[c] = a;
+                        mates[b] = d;
+                        mates[d] = b;
+                        hasImproved = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // O(n), Hierholzer iterativo sobre o multigrafo da árvore mais o
+    // emparelhamento, guardado como lista de adjacência CSR com o número de
+    // cada aresta para marcá-la como usada nas duas pontas
+    private int[] eulerianCircuit(int[] mates) {
+        var numberOfCities = parents.length;
+        var offsets = new int[numberOfCities + 1];
+        var numberOfEdges = 0;
+
+        for (int city = 0; city < numberOfCities; city++) {
+            if (parents[city] != -1) {
+                offsets[city + 1]++;
+                offsets[parents[city] + 1]++;
+                numberOfEdges++;
+            }
+
+            if (mates[city] > city) {
+                offsets[city + 1]++;
+                offsets[mates[city] + 1]++;
+                numberOfEdges++;
+            }
+        }
+
+        for (int city = 0; city < numberOfCities; city++) {
+            offsets[city + 1] += offsets[city];
+        }
+
+        var neighbors = new int[2 * numberOfEdges];
+        var edgeIds = new int[2 * numberOfEdges];
+        var nextPositions = Arrays.copyOf(offsets, numberOfCities);
+        var edge = 0;
+
+        for (int city = 0; city < numberOfCities; city++) {
+            if (parents[city] != -1) {
+                addEdge(city, parents[city], edge++, neighbors, edgeIds, nextPositions);
+            }
+
+            if (mates[city] > city) {
+                addEdge(city, mates[city], edge++, neighbors, edgeIds, nextPositions);
+            }
+        }
+
+        var isUsed = new boolean[numberOfEdges];
+        var pointers = Arrays.copyOf(offsets, numberOfCities);
+        var stack = new int[numberOfEdges + 1];
+        var circuit = new int[numberOfEdges + 1];
+        var stackSize = 0;
+        var circuitSize = 0;
+
+        stack[stackSize++] = 0;
+
+        while (stackSize > 0) {
+            var current = stack[stackSize - 1];
+
+            // pula as arestas já usadas a partir da outra ponta
+            while (pointers[current] < offsets[current + 1] && isUsed[edgeIds[pointers[current]]]) {
+                pointers[current]++;
+            }
+
+            if (pointers[current] == offsets[current + 1]) {
+                circuit[circuitSize++] = current;
+                stackSize--;
+            } else {
+                isUsed[edgeIds[pointers[current]]] = true;
+                stack[stackSize++] = neighbors[pointers[current]];
+            }
+        }
+
+        return Arrays.copyOf(circuit, circuitSize);
+    }
+
+    private static void addEdge(int a, int b, int edge, int[] neighbors, int[] edgeIds, int[] nextPositions) {
+        neighbors[nextPositions[a]] = b;
+        edgeIds[nextPositions[a]++] = edge;
+        neighbors[nextPositions[b]] = a;
+        edgeIds[nextPositions[b]++] = edge;
+    }
+
+    // O(n), mantém só a primeira visita de cada cidade
+    private int[] shortcut(int[] circuit) {
+        var tour = new int[parents.length];
+        var wasVisited = new boolean[parents.length];
+        var tourSize = 0;
+
+        for (var city : circuit) {
+            if (!wasVisited[city]) {
+                wasVisited[city] = true;
+                tour[tourSize++] = city;
+            }
+        }
+
+        return tour;
+    }
+}
@@ -0,0 +1,64 @@
+package heuristics;
+
+public class DisjointSet {
+    private final int[] parents;
+    private final int[] ranks;
+    private int numberOfSets;
+
+    // O(n), cada elemento começa em um conjunto próprio
+    public DisjointSet(int numberOfElements) {
+        this.parents = new int[numberOfElements];
+        this.ranks = new int[numberOfElements];
+        this.numberOfSets = numberOfElements;
+
+        for (int i = 0; i < numberOfElements; i++) {
+            parents[i] = i;
+        }
+    }
+
+    // O(α(n)) amortizado, com compressão de caminho feita
+    // de forma iterativa para não depender da pilha de chamadas
+    public int find(int element) {
+        var root = element;
+
+        while (parents[root] != root) {
+            root = parents[root];
+        }
+
+        while (parents[element] != root) {
+            var next = parents[element];
+            parents[element] = root;
+            element = next;
+        }
+
+        return root;
+    }
+
+    // O(α(n)) amortizado, une pelo rank e retorna se os
+    // elementos estavam em conjuntos diferentes
+    public boolean union(int first, int second) {
+        var firstRoot = find(first);
+        var secondRoot = find(second);
+
+        if (firstRoot == secondRoot) {
+            return false;
+        }
+
+        if (ranks[firstRoot] < ranks[secondRoot]) {
+            parents[firstRoot] = secondRoot;
+        } else if (ranks[firstRoot] > ranks[secondRoot]) {
+            parents[secondRoot] = firstRoot;
+        } else {
+            parents[secondRoot] = firstRoot;
+            ranks[firstRoot]++;
+        }
+
+        numberOfSets--;
+
+        return true;
+    }
+
+    public int getNumberOfSets() {
+        return numberOfSets;
+    }
+}
@@ -0,0 +1,403 @@
+package heuristics;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import common.DistanceOracle;
+import common.Exceptions;
+
+// Algoritmo genético com order crossover (OX): o filho copia um trecho
+// aleatório do primeiro pai na mesma posição e completa o resto com as
+// cidades que faltam na ordem em que aparecem no segundo pai, a partir do
+// fim do trecho. Cada filho pode levar um double-bridge de mutação e é
+// reparado com 2-opt antes de ser avaliado; os filhos de uma geração são
+// gerados e reparados em paralelo. A próxima geração são os melhores entre
+// pais e filhos, evitando repetir custos enquanto houver opções
+// A população inteira fica num único vetor populationSize * n, com o
+// indivíduo i nas posições i * n até i * n + n - 1
+public class GeneticAlgorithm {
+    public static final int DEFAULT_POPULATION_SIZE = 50;
+    public static final int DEFAULT_NUMBER_OF_GENERATIONS = 100;
+
+    private static final double MUTATION_PROBABILITY = 0.1;
+
+    private final DistanceOracle distanceMatrix;
+    private final TwoOpt twoOpt;
+    private final int populationSize;
+    private final int numberOfGenerations;
+    private final long timeBudgetInNanos;
+    private final SplittableRandom random;
+
+    private int numberOfCities;
+    private int[] population;
+    private int[] costs;
+    private int[] offspring;
+    private int[] offspringCosts;
+    private int[] survivors;
+
+    private long[] generationTimesInNanos;
+    private double[] diversities;
+    private List<Integer> tour;
+    private int cost;
+
+    public GeneticAlgorithm(DistanceOracle distanceMatrix) {
+        this(distanceMatrix, DEFAULT_POPULATION_SIZE, DEFAULT_NUMBER_OF_GENERATIONS);
+    }
+
+    public GeneticAlgorithm(DistanceOracle distanceMatrix, int populationSize, int numberOfGenerations) {
+        this(distanceMatrix, CandidateSet.cached(distanceMatrix, CandidateStrategy.NEAREST,
+                CandidateSet.DEFAULT_CANDIDATES_PER_CITY), populationSize, numberOfGenerations, Long.MAX_VALUE, 42);
+    }
+
+    // a busca para no número de gerações ou quando o tempo acabar, o que
+    // acontecer primeiro
+    public GeneticAlgorithm(DistanceOracle distanceMatrix, CandidateSet candidates, int populationSize,
+            int numberOfGenerations, long timeBudgetInMillis, long seed) {
+        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+        this.twoOpt = new TwoOpt(distanceMatrix, candidates);
+
+        if (populationSize < 2 || numberOfGenerations < 0) {
+            throw new IllegalArgumentException(
+                    "The population must have at least 2 tours and the number of generations must not be negative");
+        }
+
+        if (timeBudgetInMillis < 0) {
+            throw new IllegalArgumentException("The time budget must not be negative");
+        }
+
+        this.populationSize = populationSize;
+        this.numberOfGenerations = numberOfGenerations;
+        this.timeBudgetInNanos = timeBudgetInMillis > Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE
+                : timeBudgetInMillis * 1_000_000;
+        this.random = new SplittableRandom(seed);
+        this.tour = null;
+        this.cost = Integer.MAX_VALUE;
+    }
+
+    // O(n^2) para o tour do TSPHeuristic mais as gerações, cada uma com
+    // populationSize cruzamentos O(n) e reparos com 2-opt. Retorna o tour no
+    // mesmo formato do TSPHeuristic: 1-based, começando e terminando na
+    // cidade 1
+    public List<Integer> getTour() {
+        if (tour == null) {
+            solve();
+        }
+
+        return tour;
+    }
+
+    public int getTourCost() {
+        if (tour == null) {
+            solve();
+        }
+
+        return cost;
+    }
+
+    // O(g), tempo gasto em cada geração feita, na ordem
+    public long[] getGenerationTimesInNanos() {
+        if (tour == null) {
+            solve();
+        }
+
+        return generationTimesInNanos.clone();
+    }
+
+    // O(g), diversidade da população ao fim de cada geração feita, na ordem
+    public double[] getDiversities() {
+        if (tour == null) {
+            solve();
+        }
+
+        return diversities.clone();
+    }
+
+    private void solve() {
+        var start = System.nanoTime();
+        var initial = ArrayTour.fromClosedPath(
+                new TSPHeuristic(distanceMatrix, MSTStrategy.PRIM).getPathApproximation());
+
+        numberOfCities = initial.size();
+
+        if (numberOfCities < 8) {
+            cost = initial.cost(distanceMatrix) - twoOpt.optimize(initial);
+            generationTimesInNanos = new long[0];
+            diversities = new double[0];
+            tour = initial.toClosedPath();
+            return;
+        }
+
+        population = new int[populationSize * numberOfCities];
+        costs = new int[populationSize];
+        offspring = new int[populationSize * numberOfCities];
+        offspringCosts = new int[populationSize];
+        survivors = new int[populationSize * numberOfCities];
+
+        initializePopulation(initial);
+
+        var times = new long[numberOfGenerations];
+        var diversityPerGeneration = new double[numberOfGenerations];
+        var generation = 0;
+
+        for (; generation < numberOfGenerations && System.nanoTime() - start < timeBudgetInNanos; generation++) {
+            var generationStart = System.nanoTime();
+
+            breed();
+            selectSurvivors();
+
+            times[generation] = System.nanoTime() - generationStart;
+            diversityPerGeneration[generation] = getDiversity();
+        }
+
+        generationTimesInNanos = Arrays.copyOf(times, generation);
+        diversities = Arrays.copyOf(diversityPerGeneration, generation);
+
+        var best = 0;
+
+        for (int i = 1; i < populationSize; i++) {
+            if (costs[i] < costs[best]) {
+                best = i;
+            }
+        }
+
+        cost = costs[best];
+        tour = new ArrayTour(individual(population, best)).toClosedPath();
+    }
+
+    private int[] individual(int[] tours, int index) {
+        return Arrays.copyOfRange(tours, index * numberOfCities, (index + 1) * numberOfCities);
+    }
+
+    // O(p * n) mais os reparos, o tour do TSPHeuristic melhorado e, para o
+    // resto, metade de double-bridges dele e metade de tours aleatórios
+    private void initializePopulation(ArrayTour initial) {
+        var seeds = nextSeeds();
+        var initialTour = initial.toArray();
+
+        IntStream.range(0, populationSize).parallel().forEach(i -> {
+            var individualRandom = new SplittableRandom(seeds[i]);
+            int[] tour;
+
+            if (i == 0) {
+                tour = initialTour.clone();
+            } else if (i % 2 == 1) {
+                tour = initialTour.clone();
+                doubleBridge(tour, individualRandom);
+            } else {
+                tour = randomTour(numberOfCities, individualRandom);
+            }
+
+            costs[i] = repair(tour, population, i);
+        });
+    }
+
+    // sementes sorteadas na thread principal, para o resultado não depender
+    // de qual thread gerou cada indivíduo
+    private long[] nextSeeds() {
+        var seeds = new long[populationSize];
+
+        for (int i = 0; i < populationSize; i++) {
+            seeds[i] = random.nextLong();
+        }
+
+        return seeds;
+    }
+
+    // O(p * n) mais os reparos, um filho por posição da população
+    private void breed() {
+        var seeds = nextSeeds();
+
+        IntStream.range(0, populationSize).parallel().forEach(i -> {
+            var childRandom = new SplittableRandom(seeds[i]);
+            var first = tournament(childRandom);
+            var second = tournament(childRandom);
+
+            while (second == first) {
+                second = childRandom.nextInt(populationSize);
+            }
+
+            var child = orderCrossover(first, second, childRandom);
+
+            if (childRandom.nextDouble() < MUTATION_PROBABILITY) {
+                doubleBridge(child, childRandom);
+            }
+
+            offspringCosts[i] = repair(child, offspring, i);
+        });
+    }
+
+    // O(1), torneio binário pelo custo
+    private int tournament(SplittableRandom random) {
+        var a = random.nextInt(populationSize);
+        var b = random.nextInt(populationSize);
+
+        return costs[a] <= costs[b] ? a : b;
+    }
+
+    // O(n), copia population[first] de from até to e completa o resto com as
+    // cidades de population[second] na ordem dele, começando depois de to
+    private int[] orderCrossover(int first, int second, SplittableRandom random) {
+        var child = new int[numberOfCities];
+        var isInChild = new boolean[numberOfCities];
+        var from = random.nextInt(numberOfCities);
+        var to = from + random.nextInt(numberOfCities - from);
+        var firstOffset = first * numberOfCities;
+        var secondOffset = second * numberOfCities;
+
+        for (int position = from; position <= to; position++) {
+            child[position] = population[firstOffset + position];
+            isInChild[child[position]] = true;
+        }
+
+        var next = (to + 1) % numberOfCities;
+
+        for (int i = 1; i <= numberOfCities; i++) {
+            var city = population[secondOffset + (to + i) % numberOfCities];
+
+            if (!isInChild[city]) {
+                child[next] = city;
+                next = (next + 1) % numberOfCities;
+            }
+        }
+
+        return child;
+    }
+
+    // O(n), A B C D vira A C B D com três cortes aleatórios
+    private static void doubleBridge(int[] tour, SplittableRandom random) {
+        var numberOfCities = tour.length;
+        var first = 1 + random.nextInt(numberOfCities - 3);
+        var second = first + 1 + random.nextInt(numberOfCities - first - 2);
+        var third = second + 1 + random.nextInt(numberOfCities - second - 1);
+        var kicked = new int[third - first];
+
+        System.arraycopy(tour, second, kicked, 0, third - second);
+        System.arraycopy(tour, first, kicked, third - second, second - first);
+        System.arraycopy(kicked, 0, tour, first, third - first);
+    }
+
+    // O(n), Fisher-Yates
+    private static int[] randomTour(int numberOfCities, SplittableRandom random) {
+        var tour = new int[numberOfCities];
+
+        for (int i = 0; i < numberOfCities; i++) {
+            var j = random.nextInt(i + 1);
+            tour[i] = tour[j];
+            tour[j] = i;
+        }
+
+        return tour;
+    }
+
+    // aplica o 2-opt, grava o tour em tours na posição index e retorna o custo
+    private int repair(int[] tour, int[] tours, int index) {
+        var arrayTour = new ArrayTour(tour);
+        var repairedCost = arrayTour.cost(distanceMatrix) - twoOpt.optimize(arrayTour);
+
+        System.arraycopy(arrayTour.toArray(), 0, tours, index * numberOfCities, numberOfCities);
+
+        return repairedCost;
+    }
+
+    // O(p log p + p * n), os p melhores entre pais e filhos. Um custo igual ao
+    // de um tour já escolhido quase sempre é o mesmo tour, então esses só
+    // entram se faltar tour para completar a população
+    private void selectSurvivors() {
+        var all = new long[2 * populationSize];
+
+        for (int i = 0; i < populationSize; i++) {
+            all[i] = (long) costs[i] << 32 | i;
+            all[populationSize + i] = (long) offspringCosts[i] << 32 | (populationSize + i);
+        }
+
+        Arrays.sort(all);
+
+        var chosen = new int[populationSize];
+        var isChosen = new boolean[2 * populationSize];
+        var numberOfChosen = 0;
+
+        for (int i = 0; i < all.length && numberOfChosen < populationSize; i++) {
+            if (i == 0 || all[i] >>> 32 != all[i - 1] >>> 32) {
+                chosen[numberOfChosen++] = (int) all[i];
+                isChosen[(int) all[i]] = true;
+            }
+        }
+
+        for (int i = 0; i < all.length && numberOfChosen < populationSize; i++) {
+            if (!isChosen[(int) all[i]]) {
+                chosen[numberOfChosen++] = (int) all[i];
+            }
+        }
+
+        var survivorCosts = new int[populationSize];
+
+        for (int i = 0; i < populationSize; i++) {
+            var index = chosen[i];
+            var source = index < populationSize ? population : offspring;
+            var sourceIndex = index < populationSize ? index : index - populationSize;
+
+            System.arraycopy(source, sourceIndex * numberOfCities, survivors, i * numberOfCities, numberOfCities);
+            survivorCosts[i] = index < populationSize ? costs[index] : offspringCosts[sourceIndex];
+        }
+
+        // o vetor da geração anterior é reaproveitado na próxima
+        var previous = population;
+
+        population = survivors;
+        survivors = previous;
+        costs = survivorCosts;
+    }
+
+    // O(p * n), fração média das arestas de cada tour que não estão no melhor
+    // tour da população: 0 quando todos são iguais a ele e perto de 1 quando
+    // não têm quase nada em comum
+    public double getDiversity() {
+        if (population == null) {
+            return 0;
+        }
+
+        var best = 0;
+
+        for (int i = 1; i < populationSize; i++) {
+            if (costs[i] < costs[best]) {
+                best = i;
+            }
+        }
+
+        var bestTour = new ArrayTour(individual(population, best));
+        var sharedEdges = 0L;
+
+        for (int i = 0; i < populationSize; i++) {
+            var offset = i * numberOfCities;
+
+            for (int position = 0; position < numberOfCities; position++) {
+                var a = population[offset + position];
+                var b = population[offset + (position + 1) % numberOfCities];
+
+                if (bestTour.next(a) == b || bestTour.previous(a) == b) {
+                    sharedEdges++;
+                }
+            }
+        }
+
+        return 1 - (double) sharedEdges / ((long) populationSize * numberOfCities);
+    }
+
+    public void tryStoreInfosInFile(String fileName) {
+        Exceptions.throwIfNullOrEmpty(fileName, "fileName");
+
+        try (var writer = new BufferedWriter(new FileWriter(fileName))) {
+            writer.write(getTour().toString());
+            writer.newLine();
+            writer.write(Integer.toString(getTourCost()));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
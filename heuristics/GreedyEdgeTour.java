@@ -0,0 +1,162 @@
+package heuristics;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import common.CoordinateDistances;
+
+// Greedy edge: as arestas candidatas (cada cidade com suas k vizinhas mais
+// próximas, vindas da árvore k-d) são aceitas em ordem crescente de peso
+// enquanto nenhuma cidade passar de grau 2 e nenhum ciclo for fechado. Os
+// fragmentos que sobram são ligados pelo vizinho mais próximo entre as
+// pontas livres, também com uma árvore k-d, então nada é O(n^2)
+public class GreedyEdgeTour {
+    private static final int CANDIDATES_PER_CITY = 10;
+
+    private final CoordinateDistances coordinates;
+
+    public GreedyEdgeTour(CoordinateDistances coordinates) {
+        this.coordinates = Objects.requireNonNull(coordinates);
+    }
+
+    // O(n log n) esperado, tour 0-based começando na cidade 0
+    public int[] getTour() {
+        var numberOfCities = coordinates.getNumberOfCities();
+
+        if (numberOfCities < 3) {
+            return new NearestNeighborTour(coordinates).getTour();
+        }
+
+        // cada cidade tem até dois vizinhos no tour, -1 quando livre
+        var links = new int[2 * numberOfCities];
+        Arrays.fill(links, -1);
+
+        acceptShortEdges(links);
+        joinFragments(links);
+
+        return walk(links);
+    }
+
+    // O(n * k * log(n * k)), peso nos 32 bits altos e a aresta nos baixos.
+    // Uma aresta que aparece pelas duas pontas é recusada na segunda vez
+    // pelo conjunto disjunto
+    private void acceptShortEdges(int[] links) {
+        var numberOfCities = coordinates.getNumberOfCities();
+        var k = Math.min(CANDIDATES_PER_CITY, numberOfCities - 1);
+        var tree = new KDTree(coordinates);
+        var neighbors = new int[numberOfCities * k];
+        var found = new int[k];
+        var edges = new long[numberOfCities * k];
+        var numberOfEdges = 0;
+
+        for (int city = 0; city < numberOfCities; city++) {
+            var count = tree.kNearest(city, k, found);
+
+            for (int i = 0; i < count; i++) {
+                neighbors[city * k + i] = found[i];
+                edges[numberOfEdges++] = ((long) coordinates.getDistance(city, found[i]) << 32) | (city * k + i);
+            }
+        }
+
+        Arrays.sort(edges, 0, numberOfEdges);
+
+        var fragments = new DisjointSet(numberOfCities);
+
+        for (int i = 0; i < numberOfEdges; i++) {
+            var index = (int) edges[i];
+            var a = index / k;
+            var b = neighbors[index];
+
+            if (links[2 * a + 1] != -1 || links[2 * b + 1] != -1 || fragments.find(a) == fragments.find(b)) {
+                continue;
+            }
+
+            fragments.union(a, b);
+            link(links, a, b);
+        }
+    }
+
+    private static void link(int[] links, int a, int b) {
+        links[links[2 * a] == -1 ? 2 * a : 2 * a + 1] = b;
+        links[links[2 * b] == -1 ? 2 * b : 2 * b + 1] = a;
+    }
+
+    // Percorre o fragmento a partir da ponta start e retorna a outra ponta
+    private static int otherEnd(int[] links, int start) {
+        var previous = -1;
+        var current = start;
+
+        while (true) {
+            var next = links[2 * current] != previous ? links[2 * current] : links[2 * current + 1];
+
+            if (next == -1 || next == start) {
+                return current;
+            }
+
+            previous = current;
+            current = next;
+        }
+    }
+
+    // O(n log n) esperado, as pontas dos fragmentos (cidades com grau menor
+    // que 2, uma cidade isolada é as duas pontas de si mesma) vão para uma
+    // árvore k-d. A partir de um fragmento, a outra ponta dele é ligada à
+    // ponta livre mais próxima de outro fragmento, até sobrar um só caminho,
+    // que é fechado no final
+    private void joinFragments(int[] links) {
+        var numberOfCities = coordinates.getNumberOfCities();
+        var numberOfEnds = 0;
+
+        for (int city = 0; city < numberOfCities; city++) {
+            if (links[2 * city + 1] == -1) {
+                numberOfEnds++;
+            }
+        }
+
+        var ends = new int[numberOfEnds];
+        var next = 0;
+
+        for (int city = 0; city < numberOfCities; city++) {
+            if (links[2 * city + 1] == -1) {
+                ends[next++] = city;
+            }
+        }
+
+        var tree = new KDTree(coordinates, ends);
+        var first = ends[0];
+        var current = otherEnd(links, first);
+
+        tree.remove(first);
+        tree.remove(current);
+
+        while (tree.getNumberOfActiveCities() > 0) {
+            var nearest = tree.nearest(current);
+            var farEnd = otherEnd(links, nearest);
+
+            link(links, current, nearest);
+            tree.remove(nearest);
+            tree.remove(farEnd);
+
+            current = farEnd;
+        }
+
+        link(links, current, first);
+    }
+
+    // O(n), segue os vizinhos a partir da cidade 0
+    private static int[] walk(int[] links) {
+        var tour = new int[links.length / 2];
+        var previous = -1;
+        var current = 0;
+
+        for (int position = 0; position < tour.length; position++) {
+            tour[position] = current;
+
+            var following = links[2 * current] != previous ? links[2 * current] : links[2 * current + 1];
+            previous = current;
+            current = following;
+        }
+
+        return tour;
+    }
+}
@@ -0,0 +1,226 @@
+package heuristics;
+
+import java.util.Objects;
+
+import common.DistanceOracle;
+
+// Limitante inferior de Held-Karp: a 1-tree mínima (árvore geradora mínima
+// sem a cidade 0 mais as duas arestas mais curtas da cidade 0) nunca custa
+// mais que o tour ótimo, e continua valendo com as distâncias transformadas
+// d(i, j) + pi[i] + pi[j] descontando 2 * soma(pi). A otimização por
+// subgradiente aumenta pi das cidades com grau maior que 2 na 1-tree e
+// diminui das com grau 1, o que empurra a 1-tree na direção de um tour e
+// aumenta o limitante. O passo é o de Polyak, proporcional à distância
+// até um limitante superior, e cai pela metade quando o limitante para de
+// subir. Serve para medir a distância de um tour até o ótimo quando o
+// DynamicProgrammingApproach não cabe, e as distâncias transformadas dão
+// listas de candidatos por alpha-proximidade melhores que as originais
+public class HeldKarpBound {
+    public static final int DEFAULT_MAXIMUM_ITERATIONS = 100;
+
+    // iterações sem aumentar o limitante antes de cortar o passo pela metade
+    private static final int ITERATIONS_BEFORE_HALVING_STEP = 10;
+
+    // o passo para de ser cortado abaixo disso e a otimização termina
+    private static final double MINIMUM_STEP_FACTOR = 1e-3;
+
+    private static final int SPECIAL_CITY = 0;
+
+    private final DistanceOracle distanceMatrix;
+    private final int upperBound;
+    private final int maximumIterations;
+    private final long timeBudgetInNanos;
+
+    private int[] penalties;
+    private int lowerBound;
+    private boolean isOneTreeATour;
+    private int numberOfIterations;
+    private PenalizedDistances transformedDistances;
+
+    // o limitante superior é o custo do TSPHeuristic com Or-opt
+    public HeldKarpBound(DistanceOracle distanceMatrix) {
+        this(distanceMatrix, new TSPHeuristic(distanceMatrix, MSTStrategy.PRIM, ImprovementStage.OR_OPT)
+                .getPathApproximationCost(), DEFAULT_MAXIMUM_ITERATIONS, Long.MAX_VALUE);
+    }
+
+    // upperBound é o custo de um tour qualquer da instância
+    public HeldKarpBound(DistanceOracle distanceMatrix, int upperBound, int maximumIterations,
+            long timeBudgetInMillis) {
+        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+
+        if (maximumIterations <= 0) {
+            throw new IllegalArgumentException("The maximum number of iterations must be greather than 0");
+        }
+
+        if (timeBudgetInMillis < 0) {
+            throw new IllegalArgumentException("The time budget must not be negative");
+        }
+
+        this.upperBound = upperBound;
+        this.maximumIterations = maximumIterations;
+        this.timeBudgetInNanos = timeBudgetInMillis > Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE
+                : timeBudgetInMillis * 1_000_000;
+        this.penalties = null;
+    }
+
+    // O(n^2) por iteração, dominado pelo Prim denso da 1-tree
+    public int getLowerBound() {
+        if (penalties == null) {
+            optimize();
+        }
+
+        return lowerBound;
+    }
+
+    // (custo - limitante) / limitante, 0 quando o tour é ótimo
+    public double getGap(int tourCost) {
+        var bound = getLowerBound();
+
+        return bound <= 0 ? 0 : (double) (tourCost - bound) / bound;
+    }
+
+    // quando a melhor 1-tree é um tour, ela é um tour ótimo e o limitante é
+    // o custo ótimo
+    public boolean isOneTreeATour() {
+        if (penalties == null) {
+            optimize();
+        }
+
+        return isOneTreeATour;
+    }
+
+    public int getNumberOfIterations() {
+        if (penalties == null) {
+            optimize();
+        }
+
+        return numberOfIterations;
+    }
+
+    // O(n), as penalidades pi que deram o melhor limitante
+    public int[] getPenalties() {
+        if (penalties == null) {
+            optimize();
+        }
+
+        return penalties.clone();
+    }
+
+    // Distâncias com as penalidades do melhor limitante, sempre a mesma
+    // instância para o cache do CandidateSet valer entre chamadas
+    public DistanceOracle getTransformedDistances() {
+        if (penalties == null) {
+            optimize();
+        }
+
+        if (transformedDistances == null) {
+            transformedDistances = new PenalizedDistances(distanceMatrix, penalties);
+        }
+
+        return transformedDistances;
+    }
+
+    // O(n^2 / p), listas de candidatos por alpha-proximidade calculada com as
+    // distâncias transformadas, ordenadas pelas distâncias originais
+    public CandidateSet getAlphaNearnessCandidates(int candidatesPerCity) {
+        return CandidateSet.alphaNearness(distanceMatrix, getTransformedDistances(), candidatesPerCity);
+    }
+
+    private void optimize() {
+        var numberOfCities = distanceMatrix.getNumberOfCities();
+
+        penalties = new int[numberOfCities];
+
+        if (numberOfCities < 3) {
+            lowerBound = upperBound;
+            isOneTreeATour = true;
+            return;
+        }
+
+        var start = System.nanoTime();
+        var current = new int[numberOfCities];
+        var degrees = new int[numberOfCities];
+        var sumOfPenalties = 0L;
+        var stepFactor = 2.0;
+        var iterationsWithoutImprovement = 0;
+        var bestBound = Long.MIN_VALUE;
+
+        for (numberOfIterations = 0; numberOfIterations < maximumIterations
+                && System.nanoTime() - start < timeBudgetInNanos; numberOfIterations++) {
+            var bound = oneTreeCost(new PenalizedDistances(distanceMatrix, current), degrees) - 2 * sumOfPenalties;
+            var squaredNorm = 0L;
+
+            for (var degree : degrees) {
+                squaredNorm += (long) (degree - 2) * (degree - 2);
+            }
+
+            if (bound > bestBound) {
+                bestBound = bound;
+                System.arraycopy(current, 0, penalties, 0, numberOfCities);
+                isOneTreeATour = squaredNorm == 0;
+                iterationsWithoutImprovement = 0;
+            } else if (++iterationsWithoutImprovement == ITERATIONS_BEFORE_HALVING_STEP) {
+                stepFactor /= 2;
+                iterationsWithoutImprovement = 0;
+            }
+
+            if (squaredNorm == 0 || bound >= upperBound || stepFactor < MINIMUM_STEP_FACTOR) {
+                numberOfIterations++;
+                break;
+            }
+
+            var step = stepFactor * (upperBound - bound) / squaredNorm;
+
+            for (int city = 0; city < numberOfCities; city++) {
+                var change = (int) Math.round(step * (degrees[city] - 2));
+
+                current[city] += change;
+                sumOfPenalties += change;
+            }
+        }
+
+        lowerBound = (int) Math.min(bestBound, upperBound);
+    }
+
+    // O(n^2), custo da 1-tree mínima com as distâncias dadas e o grau de
+    // cada cidade nela
+    private static long oneTreeCost(DistanceOracle distances, int[] degrees) {
+        var numberOfCities = distances.getNumberOfCities();
+        var parents = new PrimMST(distances, 1, SPECIAL_CITY).getParents();
+        var cost = 0L;
+        var shortest = -1;
+        var secondShortest = -1;
+
+        for (int city = 0; city < numberOfCities; city++) {
+            degrees[city] = 0;
+        }
+
+        for (int city = 0; city < numberOfCities; city++) {
+            if (parents[city] != -1) {
+                cost += distances.getDistance(city, parents[city]);
+                degrees[city]++;
+                degrees[parents[city]]++;
+            }
+
+            if (city == SPECIAL_CITY) {
+                continue;
+            }
+
+            var distance = distances.getDistance(SPECIAL_CITY, city);
+
+            if (shortest == -1 || distance < distances.getDistance(SPECIAL_CITY, shortest)) {
+                secondShortest = shortest;
+                shortest = city;
+            } else if (secondShortest == -1 || distance < distances.getDistance(SPECIAL_CITY, secondShortest)) {
+                secondShortest = city;
+            }
+        }
+
+        cost += distances.getDistance(SPECIAL_CITY, shortest) + distances.getDistance(SPECIAL_CITY, secondShortest);
+        degrees[SPECIAL_CITY] = 2;
+        degrees[shortest]++;
+        degrees[secondShortest]++;
+
+        return cost;
+    }
+}
@@ -0,0 +1,93 @@
+package heuristics;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import common.CoordinateDistances;
+
+// Visita as cidades na ordem em que a curva de Hilbert passa pelas células
+// de uma grade de 2^15 x 2^15 que cobre as coordenadas. Cidades próximas na
+// curva estão próximas no plano, então o tour sai em uma ordenação
+public class HilbertCurveTour {
+    private static final int ORDER = 15;
+
+    private final CoordinateDistances coordinates;
+
+    public HilbertCurveTour(CoordinateDistances coordinates) {
+        this.coordinates = Objects.requireNonNull(coordinates);
+    }
+
+    // O(n log n), tour 0-based começando na cidade 0
+    public int[] getTour() {
+        var xs = coordinates.getXs();
+        var ys = coordinates.getYs();
+        var numberOfCities = xs.length;
+        var tour = new int[numberOfCities];
+
+        if (numberOfCities == 0) {
+            return tour;
+        }
+
+        var minimumX = Arrays.stream(xs).min().getAsInt();
+        var minimumY = Arrays.stream(ys).min().getAsInt();
+        var span = Math.max((long) Arrays.stream(xs).max().getAsInt() - minimumX,
+                (long) Arrays.stream(ys).max().getAsInt() - minimumY) + 1;
+
+        // índice na curva nos 32 bits altos e a cidade nos baixos
+        var keys = new long[numberOfCities];
+
+        for (int city = 0; city < numberOfCities; city++) {
+            var cellX = (int) (((long) xs[city] - minimumX << ORDER) / span);
+            var cellY = (int) (((long) ys[city] - minimumY << ORDER) / span);
+
+            keys[city] = (hilbertIndex(cellX, cellY) << 32) | city;
+        }
+
+        Arrays.sort(keys);
+
+        var start = 0;
+
+        for (int position = 0; position < numberOfCities; position++) {
+            tour[position] = (int) keys[position];
+
+            if (tour[position] == 0) {
+                start = position;
+            }
+        }
+
+        // gira o ciclo para começar na cidade 0, como os outros construtores
+        var rotated = new int[numberOfCities];
+
+        for (int position = 0; position < numberOfCities; position++) {
+            rotated[position] = tour[(start + position) % numberOfCities];
+        }
+
+        return rotated;
+    }
+
+    // O(ORDER), posição da célula (x, y) na curva de Hilbert, girando o
+    // quadrante a cada nível
+    static long hilbertIndex(int x, int y) {
+        long index = 0;
+
+        for (int half = 1 << (ORDER - 1); half > 0; half >>= 1) {
+            var regionX = (x & half) > 0 ? 1 : 0;
+            var regionY = (y & half) > 0 ? 1 : 0;
+
+            index += (long) half * half * ((3 * regionX) ^ regionY);
+
+            if (regionY == 0) {
+                if (regionX == 1) {
+                    x = (1 << ORDER) - 1 - x;
+                    y = (1 << ORDER) - 1 - y;
+                }
+
+                var swap = x;
+                x = y;
+                y = swap;
+            }
+        }
+
+        return index;
+    }
+}
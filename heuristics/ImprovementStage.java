@@ -0,0 +1,12 @@
+package heuristics;
+
+public enum ImprovementStage {
+    // devolve o tour da árvore geradora mínima como está
+    NONE,
+
+    // melhora o tour com 2-opt sobre as listas de candidatos
+    TWO_OPT,
+
+    // 2-opt mais os movimentos de trechos de 1 a 3 cidades do Or-opt
+    OR_OPT
+}
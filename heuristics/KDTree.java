@@ -0,0 +1,311 @@
+package heuristics;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import common.CoordinateDistances;
+
+// Árvore k-d implícita sobre as coordenadas das cidades: cities é uma
+// permutação em que o trecho [from, to) é uma subárvore, a cidade do meio é
+// a raiz dela e as metades são as subárvores esquerda e direita, divididas
+// alternadamente por x e por y. Cada subárvore guarda quantas cidades ainda
+// estão ativas, então remover uma cidade é O(log n) e as consultas pulam as
+// subárvores vazias. Nunca lê uma matriz de distâncias, as comparações são
+// feitas com o quadrado da distância euclidiana
+public class KDTree {
+    private final int[] xs;
+    private final int[] ys;
+    private final int[] cities;
+    private final int[] positions;
+    private final int[] activeCounts;
+
+    // resultado da consulta em andamento, para não alocar nada por consulta
+    private int bestCity;
+    private long bestDistance;
+    private int[] heapCities;
+    private long[] heapDistances;
+    private int heapSize;
+
+    // O(n log n), todas as cidades
+    public KDTree(CoordinateDistances coordinates) {
+        this(coordinates, allCities(coordinates.getNumberOfCities()));
+    }
+
+    // O(m log m), só as cidades dadas
+    public KDTree(CoordinateDistances coordinates, int[] cities) {
+        Objects.requireNonNull(coordinates);
+
+        this.xs = coordinates.getXs();
+        this.ys = coordinates.getYs();
+        this.cities = Objects.requireNonNull(cities).clone();
+        this.positions = new int[xs.length];
+        this.activeCounts = new int[this.cities.length];
+        this.heapCities = new int[0];
+        this.heapDistances = new long[0];
+
+        build(0, this.cities.length, 0);
+
+        // -1 nas cidades que não estão nesta árvore
+        Arrays.fill(positions, -1);
+
+        for (int position = 0; position < this.cities.length; position++) {
+            positions[this.cities[position]] = position;
+        }
+    }
+
+    // O(1), mesma árvore com o próprio estado de consulta
+    private KDTree(KDTree tree) {
+        this.xs = tree.xs;
+        this.ys = tree.ys;
+        this.cities = tree.cities;
+        this.positions = tree.positions;
+        this.activeCounts = tree.activeCounts;
+        this.heapCities = new int[0];
+        this.heapDistances = new long[0];
+    }
+
+    // O(1), cópia que compartilha a árvore e pode ser consultada por outra
+    // thread ao mesmo tempo, desde que nenhuma das duas remova cidades
+    public KDTree copyForQueries() {
+        return new KDTree(this);
+    }
+
+    private static int[] allCities(int numberOfCities) {
+        var cities = new int[numberOfCities];
+
+        for (int city = 0; city < numberOfCities; city++) {
+            cities[city] = city;
+        }
+
+        return cities;
+    }
+
+    // O(n log n) esperado, coloca a mediana da coordenada do nível no meio
+    // do trecho com quickselect e repete nas duas metades
+    private void build(int from, int to, int depth) {
+        if (from >= to) {
+            return;
+        }
+
+        var middle = (from + to) >>> 1;
+
+        select(from, to - 1, middle, depth & 1);
+        activeCounts[middle] = to - from;
+
+        build(from, middle, depth + 1);
+        build(middle + 1, to, depth + 1);
+    }
+
+    private int coordinate(int city, int axis) {
+        return axis == 0 ? xs[city] : ys[city];
+    }
+
+    // O(n) esperado, quickselect iterativo com o elemento do meio como pivô
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            var pivot = coordinate(cities[(left + right) >>> 1], axis);
+            var i = left;
+            var j = right;
+
+            while (i <= j) {
+                while (coordinate(cities[i], axis) < pivot) {
+                    i++;
+                }
+
+                while (coordinate(cities[j], axis) > pivot) {
+                    j--;
+                }
+
+                if (i <= j) {
+                    var city = cities[i];
+                    cities[i++] = cities[j];
+                    cities[j--] = city;
+                }
+            }
+
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    public int getNumberOfActiveCities() {
+        return activeCounts.length == 0 ? 0 : activeCounts[cities.length >>> 1];
+    }
+
+    // O(log n), tira a cidade das próximas consultas. Uma cidade já removida
+    // ou que não faz parte da árvore é ignorada
+    public void remove(int city) {
+        var position = positions[city];
+
+        if (position == -1 || cities[position] < 0) {
+            return;
+        }
+
+        var from = 0;
+        var to = cities.length;
+
+        while (from < to) {
+            var middle = (from + to) >>> 1;
+
+            activeCounts[middle]--;
+
+            if (position == middle) {
+                cities[middle] = ~cities[middle];
+                return;
+            }
+
+            if (position < middle) {
+                to = middle;
+            } else {
+                from = middle + 1;
+            }
+        }
+    }
+
+    private static long squaredDistance(int fromX, int fromY, int toX, int toY) {
+        long xDifference = fromX - toX;
+        long yDifference = fromY - toY;
+
+        return xDifference * xDifference + yDifference * yDifference;
+    }
+
+    // O(log n) esperado, a cidade ativa mais próxima de city (que não conta,
+    // mesmo ativa) ou -1 se não houver nenhuma
+    public int nearest(int city) {
+        bestCity = -1;
+        bestDistance = Long.MAX_VALUE;
+
+        nearest(0, cities.length, 0, city, xs[city], ys[city]);
+
+        return bestCity;
+    }
+
+    private void nearest(int from, int to, int depth, int city, int x, int y) {
+        if (from >= to || activeCounts[(from + to) >>> 1] == 0) {
+            return;
+        }
+
+        var middle = (from + to) >>> 1;
+        var candidate = cities[middle];
+
+        if (candidate >= 0 && candidate != city) {
+            var distance = squaredDistance(x, y, xs[candidate], ys[candidate]);
+
+            if (distance < bestDistance) {
+                bestDistance = distance;
+                bestCity = candidate;
+            }
+        }
+
+        var axis = depth & 1;
+        long difference = (axis == 0 ? x : y) - coordinate(candidate >= 0 ? candidate : ~candidate, axis);
+        var isLeftFirst = difference < 0;
+
+        nearest(isLeftFirst ? from : middle + 1, isLeftFirst ? middle : to, depth + 1, city, x, y);
+
+        if (difference * difference < bestDistance) {
+            nearest(isLeftFirst ? middle + 1 : from, isLeftFirst ? to : middle, depth + 1, city, x, y);
+        }
+    }
+
+    // O(k log n) esperado, as até k cidades ativas mais próximas de city (sem
+    // contar ela mesma) escritas em result em ordem crescente de distância
+    // retorna quantas foram encontradas
+    public int kNearest(int city, int k, int[] result) {
+        if (k <= 0) {
+            return 0;
+        }
+
+        if (heapCities.length < k) {
+            heapCities = new int[k];
+            heapDistances = new long[k];
+        }
+
+        heapSize = 0;
+        kNearest(0, cities.length, 0, city, k, xs[city], ys[city]);
+
+        var found = heapSize;
+
+        // tirar sempre o maior do heap deixa o resultado em ordem crescente
+        while (heapSize > 0) {
+            result[heapSize - 1] = heapCities[0];
+            popFarthest();
+        }
+
+        return found;
+    }
+
+    private void kNearest(int from, int to, int depth, int city, int k, int x, int y) {
+        if (from >= to || activeCounts[(from + to) >>> 1] == 0) {
+            return;
+        }
+
+        var middle = (from + to) >>> 1;
+        var candidate = cities[middle];
+
+        if (candidate >= 0 && candidate != city) {
+            var distance = squaredDistance(x, y, xs[candidate], ys[candidate]);
+
+            if (heapSize < k) {
+                pushCandidate(candidate, distance);
+            } else if (distance < heapDistances[0]) {
+                popFarthest();
+                pushCandidate(candidate, distance);
+            }
+        }
+
+        var axis = depth & 1;
+        long difference = (axis == 0 ? x : y) - coordinate(candidate >= 0 ? candidate : ~candidate, axis);
+        var isLeftFirst = difference < 0;
+
+        kNearest(isLeftFirst ? from : middle + 1, isLeftFirst ? middle : to, depth + 1, city, k, x, y);
+
+        if (heapSize < k || difference * difference < heapDistances[0]) {
+            kNearest(isLeftFirst ? middle + 1 : from, isLeftFirst ? to : middle, depth + 1, city, k, x, y);
+        }
+    }
+
+    // heap de máximo pela distância, com a mais distante na posição 0
+    private void pushCandidate(int city, long distance) {
+        var i = heapSize++;
+
+        while (i > 0 && heapDistances[(i - 1) / 2] < distance) {
+            heapCities[i] = heapCities[(i - 1) / 2];
+            heapDistances[i] = heapDistances[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+
+        heapCities[i] = city;
+        heapDistances[i] = distance;
+    }
+
+    private void popFarthest() {
+        var lastCity = heapCities[--heapSize];
+        var lastDistance = heapDistances[heapSize];
+        var i = 0;
+
+        while (2 * i + 1 < heapSize) {
+            var child = 2 * i + 1;
+
+            if (child + 1 < heapSize && heapDistances[child + 1] > heapDistances[child]) {
+                child++;
+            }
+
+            if (heapDistances[child] <= lastDistance) {
+                break;
+            }
+
+            heapCities[i] = heapCities[child];
+            heapDistances[i] = heapDistances[child];
+            i = child;
+        }
+
+        heapCities[i] = lastCity;
+        heapDistances[i] = lastDistance;
+    }
+}
@@ -0,0 +1,38 @@
+package heuristics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+
+public class KruskalMST {
+    private final List<Edge> edges;
+    private final int numberOfNodes;
+
+    public KruskalMST(List<Edge> edges, int numberOfNodes) {
+        this.edges = Objects.requireNonNull(edges);
+        this.numberOfNodes = numberOfNodes;
+    }
+
+    // O(|E| * log(|E|)) por causa da ordenação das arestas, a verificação
+    // de ciclo é feita pelo conjunto disjunto em O(α(n)) por aresta
+    public List<Edge> getEdgeSet() {
+        // O(|E| * log(|E|))
+        edges.sort(Comparator.comparingInt(Edge::getWeight));
+
+        var mstSet = new ArrayList<Edge>(Math.max(numberOfNodes - 1, 0));
+        var disjointSet = new DisjointSet(numberOfNodes);
+        var edgesIterator = edges.iterator();
+
+        while (mstSet.size() < numberOfNodes - 1 && edgesIterator.hasNext()) {
+            var currentEdge = edgesIterator.next();
+
+            // só entra na árvore se ligar duas componentes diferentes
+            if (disjointSet.union(currentEdge.getSourceNode(), currentEdge.getDestinationNode())) {
+                mstSet.add(currentEdge);
+            }
+        }
+
+        return mstSet;
+    }
+}
@@ -0,0 +1,249 @@
+package heuristics;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+import common.DistanceOracle;
+import common.Exceptions;
+
+// Late acceptance hill climbing a partir do tour do TSPHeuristic: a cada
+// iteração sorteia uma cidade, um dos seus candidatos e um movimento (2-opt
+// entre as arestas que saem das duas ou troca das duas de lugar), calcula a
+// variação do custo em O(1) e aceita o movimento se o novo custo não for
+// pior que o atual ou que o custo de historyLength iterações atrás. O
+// histórico só guarda custos que melhoram o que já estava nele, então a
+// busca vai aceitando cada vez menos pioras até parar num ótimo local
+// O laço não aloca nada: o melhor tour só é copiado, para um vetor já
+// alocado, quando a busca está prestes a piorar a partir dele
+public class LateAcceptanceHillClimbing {
+    public static final int DEFAULT_HISTORY_LENGTH = 5000;
+
+    // a busca para quando passa tantas iterações sem melhorar o melhor tour,
+    // desde que sejam pelo menos 2% das iterações feitas até agora
+    private static final int MINIMUM_IDLE_ITERATIONS = 1_000_000;
+
+    // de quantas em quantas iterações o relógio é consultado
+    private static final int ITERATIONS_BETWEEN_CLOCK_CHECKS = 1 << 12;
+
+    private final DistanceOracle distanceMatrix;
+    private final CandidateSet candidates;
+    private final int historyLength;
+    private final long timeBudgetInNanos;
+    private final SplittableRandom random;
+
+    private List<Integer> tour;
+    private int initialCost;
+    private int cost;
+    private long numberOfIterations;
+    private long elapsedTimeInNanos;
+
+    public LateAcceptanceHillClimbing(DistanceOracle distanceMatrix, long timeBudgetInMillis) {
+        this(distanceMatrix, CandidateSet.cached(distanceMatrix, CandidateStrategy.NEAREST,
+                CandidateSet.DEFAULT_CANDIDATES_PER_CITY), DEFAULT_HISTORY_LENGTH, timeBudgetInMillis, 42);
+    }
+
+    public LateAcceptanceHillClimbing(DistanceOracle distanceMatrix, CandidateSet candidates, int historyLength,
+            long timeBudgetInMillis, long seed) {
+        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+        this.candidates = Objects.requireNonNull(candidates);
+
+        if (historyLength <= 0) {
+            throw new IllegalArgumentException("The history length must be greather than 0");
+        }
+
+        if (timeBudgetInMillis < 0) {
+            throw new IllegalArgumentException("The time budget must not be negative");
+        }
+
+        this.historyLength = historyLength;
+        this.timeBudgetInNanos = timeBudgetInMillis > Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE
+                : timeBudgetInMillis * 1_000_000;
+        this.random = new SplittableRandom(seed);
+        this.tour = null;
+        this.initialCost = Integer.MAX_VALUE;
+        this.cost = Integer.MAX_VALUE;
+    }
+
+    // O(n^2) para o tour inicial mais o tempo dado, no mesmo formato do
+    // TSPHeuristic: 1-based, começando e terminando na cidade 1
+    public List<Integer> getTour() {
+        if (tour == null) {
+            solve();
+        }
+
+        return tour;
+    }
+
+    public int getTourCost() {
+        if (tour == null) {
+            solve();
+        }
+
+        return cost;
+    }
+
+    // custo do tour do TSPHeuristic de onde a busca partiu
+    public int getInitialCost() {
+        if (tour == null) {
+            solve();
+        }
+
+        return initialCost;
+    }
+
+    // quanto a busca diminuiu o custo do tour inicial
+    public int getImprovement() {
+        return getInitialCost() - getTourCost();
+    }
+
+    public long getNumberOfIterations() {
+        if (tour == null) {
+            solve();
+        }
+
+        return numberOfIterations;
+    }
+
+    public double getIterationsPerSecond() {
+        if (tour == null) {
+            solve();
+        }
+
+        return elapsedTimeInNanos == 0 ? 0 : numberOfIterations * 1e9 / elapsedTimeInNanos;
+    }
+
+    private void solve() {
+        var start = System.nanoTime();
+        var arrayTour = ArrayTour.fromClosedPath(
+                new TSPHeuristic(distanceMatrix, MSTStrategy.PRIM).getPathApproximation());
+
+        initialCost = arrayTour.cost(distanceMatrix);
+        cost = initialCost;
+
+        if (arrayTour.size() >= 8 && candidates.getCandidatesPerCity() > 0) {
+            var loopStart = System.nanoTime();
+
+            arrayTour = search(arrayTour, start);
+            elapsedTimeInNanos = System.nanoTime() - loopStart;
+        }
+
+        tour = arrayTour.toClosedPath();
+    }
+
+    // Retorna o melhor tour visto, que pode ser o atual ou a última cópia
+    private ArrayTour search(ArrayTour arrayTour, long start) {
+        var numberOfCities = arrayTour.size();
+        var candidatesPerCity = candidates.getCandidatesPerCity();
+        var history = new int[historyLength];
+        var best = new int[numberOfCities];
+        var current = cost;
+        var isBestSaved = false;
+        var idleIterations = 0L;
+
+        Arrays.fill(history, current);
+
+        for (long iteration = 0;; iteration++, idleIterations++) {
+            if (iteration % ITERATIONS_BETWEEN_CLOCK_CHECKS == 0 && (System.nanoTime() - start >= timeBudgetInNanos
+                    || idleIterations >= Math.max(MINIMUM_IDLE_ITERATIONS, iteration / 50))) {
+                numberOfIterations = iteration;
+                break;
+            }
+
+            var a = random.nextInt(numberOfCities);
+            var c = candidates.get(a, random.nextInt(candidatesPerCity));
+            var isTwoOpt = random.nextInt(4) != 0;
+            var delta = isTwoOpt ? twoOptDelta(arrayTour, a, c) : swapDelta(arrayTour, a, c);
+
+            if (delta == Integer.MAX_VALUE) {
+                continue;
+            }
+
+            var slot = (int) (iteration % historyLength);
+            var candidateCost = current + delta;
+
+            if (delta <= 0 || candidateCost <= history[slot]) {
+                if (delta > 0 && !isBestSaved) {
+                    arrayTour.copyTo(best);
+                    isBestSaved = true;
+                }
+
+                if (isTwoOpt) {
+                    arrayTour.twoOptMove(a, arrayTour.next(a), c, arrayTour.next(c));
+                } else {
+                    arrayTour.swapCities(a, c);
+                }
+
+                current = candidateCost;
+
+                if (current < cost) {
+                    cost = current;
+                    isBestSaved = false;
+                    idleIterations = 0;
+                }
+            }
+
+            if (current < history[slot]) {
+                history[slot] = current;
+            }
+        }
+
+        return isBestSaved ? new ArrayTour(best) : arrayTour;
+    }
+
+    // O(1), troca (a, next(a)) e (c, next(c)) por (a, c) e (next(a), next(c))
+    // Integer.MAX_VALUE quando as arestas se tocam e o movimento não existe
+    private int twoOptDelta(ArrayTour arrayTour, int a, int c) {
+        var b = arrayTour.next(a);
+        var d = arrayTour.next(c);
+
+        if (c == b || d == a) {
+            return Integer.MAX_VALUE;
+        }
+
+        return distanceMatrix.getDistance(a, c) + distanceMatrix.getDistance(b, d)
+                - distanceMatrix.getDistance(a, b) - distanceMatrix.getDistance(c, d);
+    }
+
+    // O(1), troca as cidades a e c de lugar. Se forem vizinhas a aresta
+    // entre as duas continua no tour e só as duas de fora mudam
+    private int swapDelta(ArrayTour arrayTour, int a, int c) {
+        if (arrayTour.previous(a) == c) {
+            var swapped = a;
+            a = c;
+            c = swapped;
+        }
+
+        var p = arrayTour.previous(a);
+        var n = arrayTour.next(c);
+
+        if (arrayTour.next(a) == c) {
+            return distanceMatrix.getDistance(p, c) + distanceMatrix.getDistance(a, n)
+                    - distanceMatrix.getDistance(p, a) - distanceMatrix.getDistance(c, n);
+        }
+
+        var aNext = arrayTour.next(a);
+        var cPrevious = arrayTour.previous(c);
+
+        return distanceMatrix.getDistance(p, c) + distanceMatrix.getDistance(c, aNext)
+                + distanceMatrix.getDistance(cPrevious, a) + distanceMatrix.getDistance(a, n)
+                - distanceMatrix.getDistance(p, a) - distanceMatrix.getDistance(a, aNext)
+                - distanceMatrix.getDistance(cPrevious, c) - distanceMatrix.getDistance(c, n);
+    }
+
+    public void tryStoreInfosInFile(String fileName) {
+        Exceptions.throwIfNullOrEmpty(fileName, "fileName");
+
+        try (var writer = new BufferedWriter(new FileWriter(fileName))) {
+            writer.write(getTour().toString());
+            writer.newLine();
+            writer.write(Integer.toString(getTourCost()));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
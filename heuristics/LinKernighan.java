@@ -0,0 +1,364 @@
+package heuristics;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+import common.DistanceOracle;
+import common.Exceptions;
+
+// Lin-Kernighan encadeado. Cada passo do LK parte de uma aresta (t1, t2) do
+// tour e vai aprofundando uma sequência de movimentos de 2-opt: a cada nível
+// escolhe entre os candidatos de t2 a cidade t3 com o maior ganho parcial,
+// troca (t1, t2) e (t4, t3) por (t2, t3) e (t1, t4) e continua a partir da
+// nova aresta (t1, t4). No fim só fica o prefixo da sequência com o maior
+// ganho. Quando nenhuma cidade tem mais melhoria, um double-bridge aleatório
+// e local tira o tour do ótimo local e o LK roda de novo só em volta dele;
+// se o resultado for pior, tudo é desfeito. Para quando o tempo acaba
+public class LinKernighan {
+    public static final int MAXIMUM_DEPTH = 30;
+
+    // tamanho máximo de cada trecho trocado pelo double-bridge
+    private static final int MAXIMUM_KICK_SEGMENT = 50;
+
+    private final DistanceOracle distanceMatrix;
+    private final CandidateSet candidates;
+    private final long timeBudgetInNanos;
+    private final SplittableRandom random;
+
+    // movimentos aplicados desde o último tour aceito, quatro cidades cada,
+    // para poder desfazer uma tentativa sem copiar o tour
+    private int[] moves;
+    private int numberOfMoves;
+    private final int[] addedEdges;
+
+    private List<Integer> tour;
+    private int cost;
+    private int numberOfKicks;
+    private int targetCost;
+
+    public LinKernighan(DistanceOracle distanceMatrix, long timeBudgetInMillis) {
+        this(distanceMatrix, CandidateSet.cached(distanceMatrix, CandidateStrategy.NEAREST,
+                CandidateSet.DEFAULT_CANDIDATES_PER_CITY), timeBudgetInMillis, 42);
+    }
+
+    public LinKernighan(DistanceOracle distanceMatrix, CandidateSet candidates, long timeBudgetInMillis, long seed) {
+        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+        this.candidates = Objects.requireNonNull(candidates);
+
+        if (timeBudgetInMillis < 0) {
+            throw new IllegalArgumentException("The time budget must not be negative");
+        }
+
+        this.timeBudgetInNanos = timeBudgetInMillis > Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE
+                : timeBudgetInMillis * 1_000_000;
+        this.random = new SplittableRandom(seed);
+        this.moves = new int[4 * MAXIMUM_DEPTH];
+        this.numberOfMoves = 0;
+        this.addedEdges = new int[2 * MAXIMUM_DEPTH];
+        this.tour = null;
+        this.cost = Integer.MAX_VALUE;
+        this.numberOfKicks = 0;
+        this.targetCost = Integer.MIN_VALUE;
+    }
+
+    // Para antes do tempo acabar quando o custo chegar a targetCost, por
+    // exemplo o limitante do HeldKarpBound mais a diferença aceitável até
+    // o ótimo. Deve ser chamado antes da busca começar
+    public void setTargetCost(int targetCost) {
+        this.targetCost = targetCost;
+    }
+
+    // O(n^2) para o tour inicial da árvore geradora mínima mais o tempo dado
+    // retorna o tour no mesmo formato do TSPHeuristic: 1-based, começando e
+    // terminando na cidade 1
+    public List<Integer> getTour() {
+        if (tour == null) {
+            solve();
+        }
+
+        return tour;
+    }
+
+    public int getTourCost() {
+        if (tour == null) {
+            solve();
+        }
+
+        return cost;
+    }
+
+    // quantos double-bridges foram tentados dentro do tempo
+    public int getNumberOfKicks() {
+        if (tour == null) {
+            solve();
+        }
+
+        return numberOfKicks;
+    }
+
+    private void solve() {
+        var start = System.nanoTime();
+        var arrayTour = ArrayTour.fromClosedPath(
+                new TSPHeuristic(distanceMatrix, MSTStrategy.PRIM).getPathApproximation());
+
+        cost = arrayTour.cost(distanceMatrix);
+
+        if (arrayTour.size() >= 5) {
+            var queue = new TwoOpt.CityQueue(arrayTour.size());
+
+            for (int position = 0; position < arrayTour.size(); position++) {
+                queue.push(arrayTour.cityAt(position));
+            }
+
+            cost -= optimize(arrayTour, queue);
+            numberOfMoves = 0;
+
+            if (arrayTour.size() >= 8) {
+                kickUntilTimeIsOver(arrayTour, queue, start);
+            }
+        }
+
+        tour = arrayTour.toClosedPath();
+    }
+
+    // Double-bridge com trechos curtos a partir de uma posição aleatória,
+    // seguido do LK a partir das seis cidades das pontas. A tentativa é
+    // aceita se não piorar o tour, senão os movimentos e o double-bridge
+    // são desfeitos na ordem inversa
+    private void kickUntilTimeIsOver(ArrayTour arrayTour, TwoOpt.CityQueue queue, long start) {
+        var numberOfCities = arrayTour.size();
+        var maximumSegment = Math.min(MAXIMUM_KICK_SEGMENT, (numberOfCities - 2) / 2);
+
+        while (System.nanoTime() - start < timeBudgetInNanos && cost > targetCost) {
+            var from = random.nextInt(numberOfCities);
+            var firstLength = 1 + random.nextInt(maximumSegment);
+            var secondLength = 1 + random.nextInt(maximumSegment);
+
+            var aEnd = arrayTour.cityAt(from);
+            var bStart = arrayTour.cityAt((from + 1) % numberOfCities);
+            var bEnd = arrayTour.cityAt((from + firstLength) % numberOfCities);
+            var cStart = arrayTour.cityAt((from + firstLength + 1) % numberOfCities);
+            var cEnd = arrayTour.cityAt((from + firstLength + secondLength) % numberOfCities);
+            var dStart = arrayTour.cityAt((from + firstLength + secondLength + 1) % numberOfCities);
+
+            var delta = distanceMatrix.getDistance(aEnd, cStart) + distanceMatrix.getDistance(cEnd, bStart)
+                    + distanceMatrix.getDistance(bEnd, dStart) - distanceMatrix.getDistance(aEnd, bStart)
+                    - distanceMatrix.getDistance(bEnd, cStart) - distanceMatrix.getDistance(cEnd, dStart);
+
+            arrayTour.swapAdjacentSegments(from + 1, firstLength, secondLength);
+            numberOfKicks++;
+
+            queue.push(aEnd);
+            queue.push(bStart);
+            queue.push(bEnd);
+            queue.push(cStart);
+            queue.push(cEnd);
+            queue.push(dStart);
+
+            var gain = optimize(arrayTour, queue) - delta;
+
+            if (gain >= 0) {
+                cost -= gain;
+            } else {
+                undoMoves(arrayTour, 0);
+
+                // o tour voltou a ser o do double-bridge, talvez lido ao contrário
+                if (arrayTour.next(aEnd) == cStart) {
+                    arrayTour.swapAdjacentSegments(arrayTour.positionOf(aEnd) + 1, secondLength, firstLength);
+                } else {
+                    arrayTour.swapAdjacentSegments(arrayTour.positionOf(dStart) + 1, firstLength, secondLength);
+                }
+            }
+
+            numberOfMoves = 0;
+        }
+    }
+
+    // Roda passos do LK até a fila de don't-look bits esvaziar e retorna o
+    // quanto o custo diminuiu
+    private int optimize(ArrayTour arrayTour, TwoOpt.CityQueue queue) {
+        var gain = 0;
+
+        while (!queue.isEmpty()) {
+            var t1 = queue.pop();
+            var improvement = improveFrom(arrayTour, t1, queue);
+
+            if (improvement > 0) {
+                gain += improvement;
+                queue.push(t1);
+            }
+        }
+
+        return gain;
+    }
+
+    // O(k * profundidade) avaliações, tenta as duas arestas de t1 e, no
+    // primeiro nível, cada candidato de t2 com ganho parcial positivo
+    private int improveFrom(ArrayTour arrayTour, int t1, TwoOpt.CityQueue queue) {
+        for (int direction = 0; direction < 2; direction++) {
+            var t2 = direction == 0 ? arrayTour.next(t1) : arrayTour.previous(t1);
+            var removed = distanceMatrix.getDistance(t1, t2);
+
+            for (int i = 0; i < candidates.getCandidatesPerCity(); i++) {
+                var t3 = candidates.get(t2, i);
+
+                if (removed - distanceMatrix.getDistance(t2, t3) <= 0) {
+                    break;
+                }
+
+                var t4 = direction == 0 ? arrayTour.previous(t3) : arrayTour.next(t3);
+
+                if (t3 == t1 || t4 == t2) {
+                    continue;
+                }
+
+                var gain = deepen(arrayTour, t1, t2, t3, queue);
+
+                if (gain > 0) {
+                    return gain;
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    // Aprofunda a sequência a partir de t1 -> t2 com t3 já escolhido para o
+    // primeiro nível e retorna o ganho do melhor prefixo, que é o que fica
+    // aplicado no tour. Arestas adicionadas na sequência não são removidas
+    private int deepen(ArrayTour arrayTour, int t1, int t2, int t3, TwoOpt.CityQueue queue) {
+        var firstMove = numberOfMoves;
+        var gain = distanceMatrix.getDistance(t1, t2);
+        var bestGain = 0;
+        var bestNumberOfMoves = firstMove;
+        var numberOfAddedEdges = 0;
+
+        for (int depth = 0; depth < MAXIMUM_DEPTH && t3 >= 0; depth++) {
+            // com t2 depois de t1, t4 é a cidade antes de t3 no mesmo sentido
+            var isForward = arrayTour.next(t1) == t2;
+            var t4 = isForward ? arrayTour.previous(t3) : arrayTour.next(t3);
+
+            gain += distanceMatrix.getDistance(t4, t3) - distanceMatrix.getDistance(t2, t3);
+
+            arrayTour.twoOptMove(t1, t2, t4, t3);
+            pushMove(t1, t2, t4, t3);
+
+            addedEdges[2 * numberOfAddedEdges] = t2;
+            addedEdges[2 * numberOfAddedEdges + 1] = t3;
+            numberOfAddedEdges++;
+
+            var closedGain = gain - distanceMatrix.getDistance(t4, t1);
+
+            if (closedGain > bestGain) {
+                bestGain = closedGain;
+                bestNumberOfMoves = numberOfMoves;
+            }
+
+            t2 = t4;
+            t3 = bestNextCity(arrayTour, t1, t2, gain, numberOfAddedEdges);
+        }
+
+        undoMoves(arrayTour, bestNumberOfMoves);
+
+        if (bestGain > 0) {
+            for (int move = firstMove; move < numberOfMoves; move++) {
+                for (int j = 0; j < 4; j++) {
+                    queue.push(moves[4 * move + j]);
+                }
+            }
+        }
+
+        return bestGain;
+    }
+
+    // O(k), entre os candidatos de t2 com ganho parcial positivo, o que tem a
+    // maior diferença entre a aresta (t4, t3) removida e a (t2, t3) adicionada
+    // -1 quando não há nenhum
+    private int bestNextCity(ArrayTour arrayTour, int t1, int t2, int gain, int numberOfAddedEdges) {
+        var isForward = arrayTour.next(t1) == t2;
+        var bestCity = -1;
+        var bestDifference = Integer.MIN_VALUE;
+
+        for (int i = 0; i < candidates.getCandidatesPerCity(); i++) {
+            var t3 = candidates.get(t2, i);
+            var added = distanceMatrix.getDistance(t2, t3);
+
+            if (gain - added <= 0) {
+                break;
+            }
+
+            var t4 = isForward ? arrayTour.previous(t3) : arrayTour.next(t3);
+
+            if (t3 == t1 || t4 == t2 || wasAdded(t4, t3, numberOfAddedEdges)) {
+                continue;
+            }
+
+            var difference = distanceMatrix.getDistance(t4, t3) - added;
+
+            if (difference > bestDifference) {
+                bestDifference = difference;
+                bestCity = t3;
+            }
+        }
+
+        return bestCity;
+    }
+
+    private boolean wasAdded(int a, int b, int numberOfAddedEdges) {
+        for (int i = 0; i < numberOfAddedEdges; i++) {
+            var x = addedEdges[2 * i];
+            var y = addedEdges[2 * i + 1];
+
+            if ((x == a && y == b) || (x == b && y == a)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void pushMove(int a, int b, int c, int d) {
+        if (4 * numberOfMoves == moves.length) {
+            moves = Arrays.copyOf(moves, 2 * moves.length);
+        }
+
+        moves[4 * numberOfMoves] = a;
+        moves[4 * numberOfMoves + 1] = b;
+        moves[4 * numberOfMoves + 2] = c;
+        moves[4 * numberOfMoves + 3] = d;
+        numberOfMoves++;
+    }
+
+    // Desfaz, do último para o primeiro, os movimentos guardados depois de
+    // keep: o movimento que trocou (a, b) e (c, d) por (a, c) e (b, d) é
+    // desfeito trocando (a, c) e (b, d) de volta
+    private void undoMoves(ArrayTour arrayTour, int keep) {
+        while (numberOfMoves > keep) {
+            numberOfMoves--;
+
+            var a = moves[4 * numberOfMoves];
+            var b = moves[4 * numberOfMoves + 1];
+            var c = moves[4 * numberOfMoves + 2];
+            var d = moves[4 * numberOfMoves + 3];
+
+            arrayTour.twoOptMove(a, c, b, d);
+        }
+    }
+
+    public void tryStoreInfosInFile(String fileName) {
+        Exceptions.throwIfNullOrEmpty(fileName, "fileName");
+
+        try (var writer = new BufferedWriter(new FileWriter(fileName))) {
+            writer.write(getTour().toString());
+            writer.newLine();
+            writer.write(Integer.toString(getTourCost()));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
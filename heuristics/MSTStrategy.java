@@ -0,0 +1,9 @@
+package heuristics;
+
+public enum MSTStrategy {
+    // ordena todas as arestas e usa um conjunto disjunto, O(n^2 * log(n))
+    KRUSKAL,
+
+    // trabalha direto na matriz de distâncias sem lista de arestas, O(n^2)
+    PRIM
+}
@@ -0,0 +1,310 @@
+package heuristics;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import common.DistanceOracle;
+import common.Exceptions;
+
+// Vários começos aleatórios rodando em paralelo até o tempo acabar ou até
+// uma sequência de começos sem melhorar o melhor tour. Cada começo é o
+// passeio em pré-ordem da árvore geradora mínima a partir de uma raiz
+// aleatória, um tour aleatório ou um double-bridge no melhor tour até
+// agora, e é melhorado com o Or-opt. O melhor tour global é atualizado sob
+// um lock e cada melhoria é passada para o listener na hora, então quem
+// chama pode usar o melhor tour a qualquer momento
+public class MultiStartSearch {
+    public static final int DEFAULT_MAXIMUM_STARTS_WITHOUT_IMPROVEMENT = 1000;
+
+    // com menos cidades que isso todos os tours têm o mesmo custo e o
+    // double-bridge não tem onde cortar
+    private static final int MINIMUM_CITIES_TO_PERTURB = 4;
+
+    // Recebe cada tour que melhora o melhor até agora, no formato 1-based
+    // dos solvers, junto com o custo e o tempo desde o início da busca. É
+    // chamado pela thread que achou o tour, uma chamada por vez
+    public interface ImprovementListener {
+        void onImprovement(List<Integer> tour, int cost, long elapsedInMillis);
+    }
+
+    private final DistanceOracle distanceMatrix;
+    private final CandidateSet candidates;
+    private final long timeBudgetInNanos;
+    private final int maximumStartsWithoutImprovement;
+    private final int numberOfThreads;
+    private final long seed;
+    private ImprovementListener listener;
+
+    private final AtomicInteger numberOfStarts;
+    private final AtomicInteger startsWithoutImprovement;
+    private final AtomicLong longestRandomStartInNanos;
+    private List<Edge> mstEdges;
+    private long startTime;
+    private long deadline;
+
+    // melhor tour até agora, 0-based, só lido e escrito com o lock do objeto
+    private int[] bestTour;
+    private int bestCost;
+    private List<Integer> tour;
+
+    public MultiStartSearch(DistanceOracle distanceMatrix, long timeBudgetInMillis) {
+        this(distanceMatrix, CandidateSet.cached(distanceMatrix, CandidateStrategy.NEAREST,
+                CandidateSet.DEFAULT_CANDIDATES_PER_CITY), timeBudgetInMillis,
+                DEFAULT_MAXIMUM_STARTS_WITHOUT_IMPROVEMENT, Runtime.getRuntime().availableProcessors(), 42);
+    }
+
+    public MultiStartSearch(DistanceOracle distanceMatrix, CandidateSet candidates, long timeBudgetInMillis,
+            int maximumStartsWithoutImprovement, int numberOfThreads, long seed) {
+        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+        this.candidates = Objects.requireNonNull(candidates);
+
+        if (timeBudgetInMillis < 0) {
+            throw new IllegalArgumentException("The time budget must not be negative");
+        }
+
+        if (maximumStartsWithoutImprovement <= 0 || numberOfThreads <= 0) {
+            throw new IllegalArgumentException(
+                    "The number of starts without improvement and of threads must be greather than 0");
+        }
+
+        this.timeBudgetInNanos = timeBudgetInMillis > Long.MAX_VALUE / 1_000_000 ? Long.MAX_VALUE
+                : timeBudgetInMillis * 1_000_000;
+        this.maximumStartsWithoutImprovement = maximumStartsWithoutImprovement;
+        this.numberOfThreads = numberOfThreads;
+        this.seed = seed;
+        this.listener = null;
+        this.numberOfStarts = new AtomicInteger();
+        this.startsWithoutImprovement = new AtomicInteger();
+        this.longestRandomStartInNanos = new AtomicLong();
+        this.bestTour = null;
+        this.bestCost = Integer.MAX_VALUE;
+        this.tour = null;
+    }
+
+    // deve ser chamado antes da busca começar
+    public void setImprovementListener(ImprovementListener listener) {
+        this.listener = listener;
+    }
+
+    // O(n^2) para a árvore geradora mínima mais o tempo dado, bloqueia até
+    // a busca terminar. Retorna o tour 1-based começando e terminando na
+    // cidade 1
+    public List<Integer> getTour() {
+        if (tour == null) {
+            solve();
+        }
+
+        return tour;
+    }
+
+    public int getTourCost() {
+        if (tour == null) {
+            solve();
+        }
+
+        return bestCost;
+    }
+
+    // quantos começos foram melhorados até agora
+    public int getNumberOfStarts() {
+        return numberOfStarts.get();
+    }
+
+    // O(n), cópia do melhor tour até agora, que pode ser pedida por outra
+    // thread durante a busca. null antes do primeiro começo terminar
+    public synchronized List<Integer> getBestTourSoFar() {
+        return bestTour == null ? null : new ArrayTour(bestTour).toClosedPath();
+    }
+
+    public synchronized int getBestCostSoFar() {
+        return bestCost;
+    }
+
+    private void solve() {
+        startTime = System.nanoTime();
+        deadline = startTime + timeBudgetInNanos;
+
+        // sem limite de tempo a soma passa de Long.MAX_VALUE
+        if (deadline < startTime) {
+            deadline = Long.MAX_VALUE;
+        }
+
+        var parents = new PrimMST(distanceMatrix).getParents();
+
+        mstEdges = new ArrayList<>(parents.length);
+
+        for (int city = 0; city < parents.length; city++) {
+            if (parents[city] != -1) {
+                mstEdges.add(new Edge(distanceMatrix.getDistance(city, parents[city]),
+                        Math.min(city, parents[city]), Math.max(city, parents[city])));
+            }
+        }
+
+        // O(n * log(n)), mesma ordem do TSPHeuristic, para o primeiro começo
+        // ser o passeio que ele gera
+        mstEdges.sort(Comparator.comparingInt(Edge::getWeight)
+                .thenComparingInt(Edge::getSourceNode)
+                .thenComparingInt(Edge::getDestinationNode));
+
+        var random = new SplittableRandom(seed);
+
+        // o primeiro começo roda aqui, antes das threads, então sempre existe
+        // um melhor tour, mesmo que a busca seja interrompida logo em seguida
+        var firstTour = new ArrayTour(newStart(numberOfStarts.getAndIncrement(), random));
+
+        offer(firstTour, firstTour.cost(distanceMatrix)
+                - new OrOpt(distanceMatrix, candidates).optimize(firstTour, deadline));
+
+        var executor = Executors.newFixedThreadPool(numberOfThreads);
+        var workers = new ArrayList<Future<?>>(numberOfThreads);
+
+        for (int i = 0; i < numberOfThreads; i++) {
+            var workerRandom = random.split();
+            workers.add(executor.submit(() -> runStarts(workerRandom)));
+        }
+
+        executor.shutdown();
+
+        try {
+            for (var worker : workers) {
+                worker.get();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            executor.shutdownNow();
+            throw new IllegalStateException("A start of the search failed", e.getCause());
+        }
+
+        synchronized (this) {
+            tour = new ArrayTour(bestTour).toClosedPath();
+        }
+    }
+
+    // o prazo é conferido antes de cada começo e dentro do Or-opt, então
+    // nenhuma thread começa nada depois que o tempo acaba
+    private void runStarts(SplittableRandom random) {
+        var orOpt = new OrOpt(distanceMatrix, candidates);
+
+        while (System.nanoTime() < deadline && startsWithoutImprovement.get() < maximumStartsWithoutImprovement
+                && !Thread.currentThread().isInterrupted()) {
+            var start = numberOfStarts.getAndIncrement();
+            var isRandomTour = isRandomTourStart(start);
+            var improvementStart = System.nanoTime();
+            var arrayTour = new ArrayTour(isRandomTour ? randomTour(distanceMatrix.getNumberOfCities(), random)
+                    : newStart(start, random));
+            var cost = arrayTour.cost(distanceMatrix) - orOpt.optimize(arrayTour, deadline);
+
+            if (isRandomTour) {
+                longestRandomStartInNanos.accumulateAndGet(System.nanoTime() - improvementStart, Math::max);
+            }
+
+            offer(arrayTour, cost);
+        }
+    }
+
+    // O(1), um tour aleatório precisa de muito mais movimentos do Or-opt que
+    // os outros começos, então só é usado na sua vez enquanto o mais
+    // demorado até agora ainda cabe no tempo que falta
+    private boolean isRandomTourStart(int start) {
+        return start % 4 == 1 && distanceMatrix.getNumberOfCities() >= MINIMUM_CITIES_TO_PERTURB
+                && System.nanoTime() + longestRandomStartInNanos.get() < deadline;
+    }
+
+    // O(n), o primeiro começo é o mesmo tour do TSPHeuristic com Prim, os
+    // outros alternam entre uma raiz aleatória da árvore e perturbações do
+    // melhor tour, com os tours aleatórios escolhidos antes pelo runStarts
+    private int[] newStart(int start, SplittableRandom random) {
+        var numberOfCities = distanceMatrix.getNumberOfCities();
+
+        if (start == 0 || numberOfCities < MINIMUM_CITIES_TO_PERTURB) {
+            return PreorderWalk.fromEdges(mstEdges, numberOfCities, 0).getTour();
+        }
+
+        int[] best;
+
+        synchronized (this) {
+            best = bestTour;
+        }
+
+        if (start % 4 == 0 || best == null) {
+            return PreorderWalk.fromEdges(mstEdges, numberOfCities, random.nextInt(numberOfCities)).getTour();
+        }
+
+        return doubleBridge(best, random);
+    }
+
+    // O(n), Fisher-Yates
+    private static int[] randomTour(int numberOfCities, SplittableRandom random) {
+        var tour = new int[numberOfCities];
+
+        for (int i = 0; i < numberOfCities; i++) {
+            var j = random.nextInt(i + 1);
+            tour[i] = tour[j];
+            tour[j] = i;
+        }
+
+        return tour;
+    }
+
+    // O(n), corta o tour em A B C D com três posições aleatórias e monta
+    // A C B D, movimento que o 2-opt e o Or-opt não desfazem com facilidade
+    private static int[] doubleBridge(int[] tour, SplittableRandom random) {
+        var numberOfCities = tour.length;
+        var first = 1 + random.nextInt(numberOfCities - 3);
+        var second = first + 1 + random.nextInt(numberOfCities - first - 2);
+        var third = second + 1 + random.nextInt(numberOfCities - second - 1);
+        var kicked = new int[numberOfCities];
+        var next = 0;
+
+        System.arraycopy(tour, 0, kicked, next, first);
+        next += first;
+        System.arraycopy(tour, second, kicked, next, third - second);
+        next += third - second;
+        System.arraycopy(tour, first, kicked, next, second - first);
+        next += second - first;
+        System.arraycopy(tour, third, kicked, next, numberOfCities - third);
+
+        return kicked;
+    }
+
+    // O(n) quando melhora, O(1) caso contrário
+    private synchronized void offer(ArrayTour arrayTour, int cost) {
+        if (cost >= bestCost) {
+            startsWithoutImprovement.incrementAndGet();
+            return;
+        }
+
+        bestCost = cost;
+        bestTour = arrayTour.toArray();
+        startsWithoutImprovement.set(0);
+
+        if (listener != null) {
+            listener.onImprovement(arrayTour.toClosedPath(), cost, (System.nanoTime() - startTime) / 1_000_000);
+        }
+    }
+
+    public void tryStoreInfosInFile(String fileName) {
+        Exceptions.throwIfNullOrEmpty(fileName, "fileName");
+
+        try (var writer = new BufferedWriter(new FileWriter(fileName))) {
+            writer.write(getTour().toString());
+            writer.newLine();
+            writer.write(Integer.toString(getTourCost()));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
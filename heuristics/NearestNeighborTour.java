@@ -0,0 +1,40 @@
+package heuristics;
+
+import java.util.Objects;
+
+import common.CoordinateDistances;
+
+// Vizinho mais próximo: parte da cidade 0 e vai sempre para a cidade mais
+// próxima ainda não visitada, que a árvore k-d encontra em O(log n)
+// esperado porque as cidades visitadas são removidas dela
+public class NearestNeighborTour {
+    private final CoordinateDistances coordinates;
+
+    public NearestNeighborTour(CoordinateDistances coordinates) {
+        this.coordinates = Objects.requireNonNull(coordinates);
+    }
+
+    // O(n log n) esperado, tour 0-based começando na cidade 0
+    public int[] getTour() {
+        var numberOfCities = coordinates.getNumberOfCities();
+        var tour = new int[numberOfCities];
+
+        if (numberOfCities == 0) {
+            return tour;
+        }
+
+        var tree = new KDTree(coordinates);
+        var current = 0;
+
+        for (int position = 0; position < numberOfCities; position++) {
+            tour[position] = current;
+            tree.remove(current);
+
+            if (position + 1 < numberOfCities) {
+                current = tree.nearest(current);
+            }
+        }
+
+        return tour;
+    }
+}
@@ -0,0 +1,218 @@
+package heuristics;
+
+import java.util.List;
+import java.util.Objects;
+
+import common.DistanceOracle;
+
+// Busca local com a vizinhança "or-2opt": os movimentos do 2-opt mais os
+// do Or-opt, que tiram um trecho de 1 a 3 cidades do tour e o colocam entre
+// duas cidades vizinhas, na mesma ordem ou invertido (os movimentos de 3-opt
+// que preservam o resto do tour). O custo de cada movimento é calculado em
+// O(1) a partir das seis arestas envolvidas e o movimento é aplicado como
+// uma sequência de inversões no ArrayTour, sem percorrer o tour inteiro
+// Serve para melhorar o tour de qualquer um dos solvers
+public class OrOpt {
+    public static final int MAXIMUM_SEGMENT_LENGTH = 3;
+
+    // cidades tiradas da fila entre uma leitura do relógio e outra quando
+    // há um prazo
+    private static final int CITIES_BETWEEN_CLOCK_CHECKS = 1 << 8;
+
+    private final DistanceOracle distanceMatrix;
+    private final CandidateSet candidates;
+    private final TwoOpt twoOpt;
+
+    public OrOpt(DistanceOracle distanceMatrix) {
+        this(distanceMatrix, CandidateSet.cached(distanceMatrix, CandidateStrategy.NEAREST,
+                CandidateSet.DEFAULT_CANDIDATES_PER_CITY));
+    }
+
+    public OrOpt(DistanceOracle distanceMatrix, CandidateSet candidates) {
+        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+        this.candidates = Objects.requireNonNull(candidates);
+        this.twoOpt = new TwoOpt(distanceMatrix, candidates);
+    }
+
+    // Melhora um tour no formato dos solvers (1-based, com a primeira cidade
+    // repetida no final) e devolve o resultado no mesmo formato
+    public List<Integer> improve(List<Integer> path) {
+        var tour = ArrayTour.fromClosedPath(path);
+        optimize(tour);
+        return tour.toClosedPath();
+    }
+
+    // Mesmo que o anterior para um tour 0-based sem a volta à primeira cidade
+    public int[] improve(int[] tour) {
+        var arrayTour = new ArrayTour(tour);
+        optimize(arrayTour);
+        return arrayTour.toArray();
+    }
+
+    // Aplica movimentos de melhoria, com os mesmos don't-look bits do 2-opt,
+    // até nenhuma cidade ter um movimento que diminua o custo e retorna o
+    // quanto o custo do tour diminuiu
+    public int optimize(ArrayTour tour) {
+        return optimize(tour, false, 0);
+    }
+
+    // Mesmo que o anterior, mas para assim que System.nanoTime() chega em
+    // deadlineInNanos, deixando o tour com as melhorias feitas até ali
+    public int optimize(ArrayTour tour, long deadlineInNanos) {
+        return optimize(tour, true, deadlineInNanos);
+    }
+
+    private int optimize(ArrayTour tour, boolean hasDeadline, long deadlineInNanos) {
+        var numberOfCities = tour.size();
+
+        if (numberOfCities < MAXIMUM_SEGMENT_LENGTH + 5) {
+            return twoOpt.optimize(tour);
+        }
+
+        var queue = new TwoOpt.CityQueue(numberOfCities);
+        var gain = 0;
+
+        for (int position = 0; position < numberOfCities; position++) {
+            queue.push(tour.cityAt(position));
+        }
+
+        for (var iteration = 0; !queue.isEmpty(); iteration++) {
+            if (hasDeadline && iteration % CITIES_BETWEEN_CLOCK_CHECKS == 0 && System.nanoTime() >= deadlineInNanos) {
+                break;
+            }
+
+            var city = queue.pop();
+            var improvement = twoOpt.improveCity(tour, city, queue);
+
+            if (improvement == 0) {
+                improvement = moveSegmentStartingAt(tour, city, queue);
+            }
+
+            if (improvement > 0) {
+                gain += improvement;
+                queue.push(city);
+            }
+        }
+
+        return gain;
+    }
+
+    // O(k * MAXIMUM_SEGMENT_LENGTH), tenta mover os trechos que começam na
+    // cidade first e seguem em qualquer um dos dois sentidos do tour
+    private int moveSegmentStartingAt(ArrayTour tour, int first, TwoOpt.CityQueue queue) {
+        for (int direction = 0; direction < 2; direction++) {
+            var last = first;
+
+            for (int length = 1; length <= MAXIMUM_SEGMENT_LENGTH; length++) {
+                if (length > 1) {
+                    last = direction == 0 ? tour.next(last) : tour.previous(last);
+                }
+
+                // p é o vizinho de fora antes de first e n o vizinho de fora depois de last
+                var p = direction == 0 ? tour.previous(first) : tour.next(first);
+                var n = direction == 0 ? tour.next(last) : tour.previous(last);
+                var removed = distanceMatrix.getDistance(p, first) + distanceMatrix.getDistance(last, n)
+                        - distanceMatrix.getDistance(p, n);
+
+                if (removed <= 0) {
+                    continue;
+                }
+
+                var improvement = insertSegment(tour, direction, first, last, length, p, n, removed, queue);
+
+                if (improvement > 0) {
+                    return improvement;
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    // O(k), procura entre os candidatos das pontas do trecho uma aresta
+    // (c, d) onde colocar o trecho. Com o trecho ligado a um candidato, a
+    // busca para assim que essa aresta não for menor que o ganho de tirar o
+    // trecho do lugar
+    private int insertSegment(ArrayTour tour, int direction, int first, int last, int length, int p, int n,
+            int removed, TwoOpt.CityQueue queue) {
+        for (int end = 0; end < 2; end++) {
+            var city = end == 0 ? first : last;
+
+            for (int i = 0; i < candidates.getCandidatesPerCity(); i++) {
+                var c = candidates.get(city, i);
+                var link = distanceMatrix.getDistance(city, c);
+
+                if (link >= removed) {
+                    break;
+                }
+
+                if (isInSegment(tour, direction, first, length, c) || c == p || c == n) {
+                    continue;
+                }
+
+                // o trecho pode entrar entre c e qualquer um dos seus dois vizinhos
+                for (int side = 0; side < 2; side++) {
+                    var d = side == 0 ? tour.next(c) : tour.previous(c);
+
+                    if (isInSegment(tour, direction, first, length, d) || d == p || d == n) {
+                        continue;
+                    }
+
+                    // a ponta city fica ligada a c e a outra ponta a d
+                    var other = end == 0 ? last : first;
+                    var delta = link + distanceMatrix.getDistance(other, d) - distanceMatrix.getDistance(c, d)
+                            - removed;
+
+                    if (delta >= 0) {
+                        continue;
+                    }
+
+                    applyInsertion(tour, direction, first, last, p, n, city == first ? c : d, city == first ? d : c);
+
+                    queue.push(first);
+                    queue.push(last);
+                    queue.push(p);
+                    queue.push(n);
+                    queue.push(c);
+                    queue.push(d);
+
+                    return -delta;
+                }
+            }
+        }
+
+        return 0;
+    }
+
+    // O(MAXIMUM_SEGMENT_LENGTH)
+    private static boolean isInSegment(ArrayTour tour, int direction, int first, int length, int city) {
+        for (int i = 0; i < length; i++, first = direction == 0 ? tour.next(first) : tour.previous(first)) {
+            if (first == city) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Tira o trecho first ... last de entre p e n e o coloca entre x e y,
+    // ficando x ligado a first e last ligado a y. Com o tour lido no sentido
+    // p first ... last n ... u v, onde (u, v) é a aresta (x, y) nesse mesmo
+    // sentido, são até três movimentos de 2-opt: (p, first) e (u, v) viram
+    // (p, u) e (first, v), depois (p, u) e (n, last) viram (p, n) e
+    // (u, last), o que deixa u last ... first v, e se u for x o trecho ainda
+    // é invertido para ficar x first ... last y
+    private static void applyInsertion(ArrayTour tour, int direction, int first, int last, int p, int n, int x,
+            int y) {
+        var isArrayOrder = direction == 0;
+        var u = (tour.next(x) == y) == isArrayOrder ? x : y;
+        var v = u == x ? y : x;
+
+        tour.twoOptMove(p, first, u, v);
+        tour.twoOptMove(p, u, n, last);
+
+        if (u == x) {
+            tour.twoOptMove(u, last, first, v);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package heuristics;
+
+import java.util.Objects;
+
+import common.DistanceOracle;
+import common.Exceptions;
+
+// Distâncias transformadas pelas penalidades pi do limitante de Held-Karp:
+// d'(i, j) = d(i, j) + pi[i] + pi[j]. Todo tour custa exatamente
+// 2 * soma(pi) a mais com elas, então o tour ótimo é o mesmo, mas a 1-tree
+// mínima fica mais parecida com ele
+public class PenalizedDistances implements DistanceOracle {
+    private final DistanceOracle distanceMatrix;
+    private final int[] penalties;
+
+    public PenalizedDistances(DistanceOracle distanceMatrix, int[] penalties) {
+        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+        this.penalties = Objects.requireNonNull(penalties).clone();
+
+        Exceptions.throwIfNotEqual(penalties.length, distanceMatrix.getNumberOfCities(), "number of penalties",
+                "number of cities");
+    }
+
+    @Override
+    public int getNumberOfCities() {
+        return penalties.length;
+    }
+
+    @Override
+    public int getDistance(int from, int to) {
+        return distanceMatrix.getDistance(from, to) + penalties[from] + penalties[to];
+    }
+}
@@ -0,0 +1,158 @@
+package heuristics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+public class PreorderWalk {
+    private final int[] childrenOffsets;
+    private final int[] children;
+    private final int[] parents;
+
+    // O(n), monta os filhos de cada nó no formato CSR: os filhos do nó i
+    // ficam em children[childrenOffsets[i]] até children[childrenOffsets[i + 1] - 1],
+    // em ordem crescente de índice
+    public PreorderWalk(int[] parents) {
+        this.parents = Objects.requireNonNull(parents);
+        this.childrenOffsets = new int[parents.length + 1];
+
+        var numberOfChildren = 0;
+
+        for (var parent : parents) {
+            if (parent != -1) {
+                childrenOffsets[parent + 1]++;
+                numberOfChildren++;
+            }
+        }
+
+        for (int node = 0; node < parents.length; node++) {
+            childrenOffsets[node + 1] += childrenOffsets[node];
+        }
+
+        this.children = new int[numberOfChildren];
+
+        var nextPositions = new int[parents.length];
+        System.arraycopy(childrenOffsets, 0, nextPositions, 0, parents.length);
+
+        for (int node = 0; node < parents.length; node++) {
+            if (parents[node] != -1) {
+                children[nextPositions[parents[node]]++] = node;
+            }
+        }
+    }
+
+    private PreorderWalk(int[] parents, int[] childrenOffsets, int[] children) {
+        this.parents = parents;
+        this.childrenOffsets = childrenOffsets;
+        this.children = children;
+    }
+
+    // O(n), enraíza as arestas de uma árvore não direcionada em rootNode
+    // usando uma lista de adjacência CSR e uma pilha explícita. Os filhos
+    // de cada nó ficam na ordem em que aparecem nas arestas
+    public static PreorderWalk fromEdges(List<Edge> edges, int numberOfNodes, int rootNode) {
+        Objects.requireNonNull(edges);
+
+        var offsets = new int[numberOfNodes + 1];
+
+        for (var edge : edges) {
+            offsets[edge.getSourceNode() + 1]++;
+            offsets[edge.getDestinationNode() + 1]++;
+        }
+
+        for (int node = 0; node < numberOfNodes; node++) {
+            offsets[node + 1] += offsets[node];
+        }
+
+        var neighbors = new int[offsets[numberOfNodes]];
+        var nextPositions = new int[numberOfNodes];
+        System.arraycopy(offsets, 0, nextPositions, 0, numberOfNodes);
+
+        for (var edge : edges) {
+            neighbors[nextPositions[edge.getSourceNode()]++] = edge.getDestinationNode();
+            neighbors[nextPositions[edge.getDestinationNode()]++] = edge.getSourceNode();
+        }
+
+        var parents = new int[numberOfNodes];
+        var wasVisited = new boolean[numberOfNodes];
+        var stack = new int[numberOfNodes];
+        var stackSize = 0;
+
+        Arrays.fill(parents, -1);
+
+        if (numberOfNodes > 0) {
+            stack[stackSize++] = rootNode;
+            wasVisited[rootNode] = true;
+        }
+
+        while (stackSize > 0) {
+            var current = stack[--stackSize];
+
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                var neighbor = neighbors[i];
+
+                if (!wasVisited[neighbor]) {
+                    wasVisited[neighbor] = true;
+                    parents[neighbor] = current;
+                    stack[stackSize++] = neighbor;
+                }
+            }
+        }
+
+        // os vizinhos de cada nó que viraram filhos dele, na ordem da lista de adjacência
+        var childrenOffsets = new int[numberOfNodes + 1];
+        var children = new int[Math.max(numberOfNodes - 1, 0)];
+        var numberOfChildren = 0;
+
+        for (int node = 0; node < numberOfNodes; node++) {
+            childrenOffsets[node] = numberOfChildren;
+
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                if (parents[neighbors[i]] == node) {
+                    children[numberOfChildren++] = neighbors[i];
+                }
+            }
+        }
+
+        childrenOffsets[numberOfNodes] = numberOfChildren;
+
+        return new PreorderWalk(parents, childrenOffsets, children);
+    }
+
+    // O(n), pai de cada nó, sendo -1 o pai das raízes
+    public int[] getParents() {
+        return parents.clone();
+    }
+
+    // O(n), percorre a árvore em pré-ordem com uma pilha explícita, sem
+    // recursão, emitindo cada nó uma única vez (o atalho do passeio duplo
+    // na árvore já sai pronto). Nós sem pai são tratados como raízes e os
+    // filhos são visitados na ordem em que foram guardados
+    public int[] getTour() {
+        var tour = new int[parents.length];
+        var stack = new int[parents.length];
+        var tourSize = 0;
+
+        for (int root = 0; root < parents.length; root++) {
+            if (parents[root] != -1) {
+                continue;
+            }
+
+            var stackSize = 0;
+            stack[stackSize++] = root;
+
+            while (stackSize > 0) {
+                var current = stack[--stackSize];
+
+                tour[tourSize++] = current;
+
+                // empilha de trás pra frente para visitar os filhos na ordem guardada
+                for (int i = childrenOffsets[current + 1] - 1; i >= childrenOffsets[current]; i--) {
+                    stack[stackSize++] = children[i];
+                }
+            }
+        }
+
+        return tour;
+    }
+}
@@ -0,0 +1,103 @@
+package heuristics;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import common.DistanceOracle;
+
+public class PrimMST {
+    private final DistanceOracle distanceMatrix;
+    private final int rootNode;
+    private final int excludedNode;
+
+    public PrimMST(DistanceOracle distanceMatrix) {
+        this(distanceMatrix, 0);
+    }
+
+    public PrimMST(DistanceOracle distanceMatrix, int rootNode) {
+        this(distanceMatrix, rootNode, -1);
+    }
+
+    // a árvore cobre todas as cidades menos excludedNode, que fica com pai
+    // -1 como a raiz. É a parte da árvore de uma 1-tree, onde a cidade
+    // excluída é ligada depois pelas suas duas arestas mais curtas
+    public PrimMST(DistanceOracle distanceMatrix, int rootNode, int excludedNode) {
+        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+        this.rootNode = rootNode;
+        this.excludedNode = excludedNode;
+
+        if (rootNode == excludedNode) {
+            throw new IllegalArgumentException("The root can not be the excluded node");
+        }
+    }
+
+    // O(n^2), versão densa do algoritmo de Prim: a cada iteração escolhe
+    // a cidade fora da árvore com a menor chave e atualiza as chaves das
+    // demais com a linha da matriz de distâncias dessa cidade. Usa apenas
+    // dois vetores primitivos (chaves e pais), sem lista de arestas.
+    // Empates de peso são decididos pela menor ponta e depois pela maior
+    // ponta da aresta, a mesma ordem total do Kruskal, então as duas
+    // estratégias chegam na mesma árvore
+    // retorna o pai de cada cidade na árvore, sendo -1 o pai da raiz
+    public int[] getParents() {
+        var numberOfNodes = distanceMatrix.getNumberOfCities();
+        var keys = new int[numberOfNodes];
+        var parents = new int[numberOfNodes];
+        var isInTree = new boolean[numberOfNodes];
+
+        Arrays.fill(keys, Integer.MAX_VALUE);
+        Arrays.fill(parents, -1);
+        keys[rootNode] = 0;
+
+        if (excludedNode != -1) {
+            isInTree[excludedNode] = true;
+        }
+
+        var numberOfNodesInTree = excludedNode == -1 ? numberOfNodes : numberOfNodes - 1;
+
+        for (int iteration = 0; iteration < numberOfNodesInTree; iteration++) {
+            var current = -1;
+
+            // O(n), busca a cidade mais próxima da árvore
+            for (int node = 0; node < numberOfNodes; node++) {
+                if (!isInTree[node] && (current == -1 || keys[node] < keys[current]
+                        || keys[node] == keys[current]
+                                && isEdgeBefore(node, parents[node], current, parents[current]))) {
+                    current = node;
+                }
+            }
+
+            isInTree[current] = true;
+
+            // O(n), atualiza as chaves com as arestas saindo da cidade escolhida
+            for (int node = 0; node < numberOfNodes; node++) {
+                if (isInTree[node]) {
+                    continue;
+                }
+
+                var distance = distanceMatrix.getDistance(current, node);
+
+                if (distance < keys[node]
+                        || distance == keys[node] && isEdgeBefore(node, current, node, parents[node])) {
+                    keys[node] = distance;
+                    parents[node] = current;
+                }
+            }
+        }
+
+        return parents;
+    }
+
+    // compara as arestas (a, b) e (c, d) pela menor ponta e depois pela maior,
+    // uma ponta -1 é a raiz ainda sem aresta e nunca empata com outra chave
+    private static boolean isEdgeBefore(int a, int b, int c, int d) {
+        var first = Math.min(a, b);
+        var second = Math.min(c, d);
+
+        if (first != second) {
+            return first < second;
+        }
+
+        return Math.max(a, b) < Math.max(c, d);
+    }
+}
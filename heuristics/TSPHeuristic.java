@@ -5,108 +5,146 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.stream.Collectors;
 
+import common.DistanceOracle;
 import common.Exceptions;
 
 public class TSPHeuristic {
-    private final List<Edge> edges;
-    private final int[][] distanceMatrix;
+    private List<Edge> edges;
+    private final DistanceOracle distanceMatrix;
+    private final MSTStrategy mstStrategy;
+    private final ImprovementStage improvementStage;
+    private final TourConstruction tourConstruction;
     private List<Integer> pathApproximation;
     private int cost;
 
-    public TSPHeuristic(int[][] distanceMatrix) {
-        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+    public TSPHeuristic(DistanceOracle distanceMatrix) {
+        this(distanceMatrix, MSTStrategy.KRUSKAL);
+    }
 
-        if (distanceMatrix.length != distanceMatrix[0].length) {
-            throw new IllegalArgumentException("Distance matrix must be squared");
-        }
+    public TSPHeuristic(DistanceOracle distanceMatrix, MSTStrategy mstStrategy) {
+        this(distanceMatrix, mstStrategy, ImprovementStage.NONE);
+    }
+
+    public TSPHeuristic(DistanceOracle distanceMatrix, MSTStrategy mstStrategy, ImprovementStage improvementStage) {
+        this(distanceMatrix, mstStrategy, improvementStage, TourConstruction.DOUBLE_TREE);
+    }
+
+    public TSPHeuristic(DistanceOracle distanceMatrix, MSTStrategy mstStrategy, ImprovementStage improvementStage,
+            TourConstruction tourConstruction) {
+        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+        this.mstStrategy = Objects.requireNonNull(mstStrategy);
+        this.improvementStage = Objects.requireNonNull(improvementStage);
+        this.tourConstruction = Objects.requireNonNull(tourConstruction);
 
-        this.edges = new ArrayList<>(distanceMatrix.length * distanceMatrix.length);
+        this.edges = null;
         this.pathApproximation = null;
         this.cost = Integer.MAX_VALUE;
-
-        initEdges(distanceMatrix);
     }
 
     // O(n^2), dois loops aninhados O(n)
-    private void initEdges(int[][] distanceMatrix) {
-        for (int i = 0; i < distanceMatrix.length; i++) {
-            for (int j = 0; j < distanceMatrix.length; j++) {
-                if (i != j) {
-                    edges.add(new Edge(distanceMatrix[i][j], i, j));
-                }
+    // como o grafo é simétrico só é necessário uma aresta por par de cidades
+    // só é usado pelo Kruskal, o Prim lê direto da matriz de distâncias
+    private void initEdges() {
+        var numberOfCities = distanceMatrix.getNumberOfCities();
+
+        edges = new ArrayList<>(numberOfCities * (numberOfCities - 1) / 2);
+
+        for (int i = 0; i < numberOfCities; i++) {
+            for (int j = i + 1; j < numberOfCities; j++) {
+                edges.add(new Edge(distanceMatrix.getDistance(i, j), i, j));
             }
         }
     }
 
-    // O(n), percorre a lista de arestas e insere se necessário na
-    // lista de adjacência
-    private Map<Integer, List<Integer>> buildAdjacencyListFrom(List<Edge> edges) {
-        var adjacencyList = new LinkedHashMap<Integer, List<Integer>>();
+    // O(n^2 * log(n)), dominado pela ordenação das n * (n - 1) / 2 arestas
+    // feita pelo algoritmo de Kruskal, a verificação de ciclo é feita por
+    // um conjunto disjunto sem construir listas de adjacência a cada aresta
+    // O(n^2) no caso do Prim, que escolhe a mesma árvore do Kruskal e tem
+    // as arestas colocadas na ordem em que o Kruskal as aceitaria (peso,
+    // menor ponta, maior ponta), então as duas estratégias geram o mesmo
+    // passeio. Retorna a árvore enraizada na cidade 0
+    private PreorderWalk getMSTWalk() {
+        var numberOfCities = distanceMatrix.getNumberOfCities();
+
+        if (mstStrategy == MSTStrategy.PRIM) {
+            var parents = new PrimMST(distanceMatrix).getParents();
+            var mstEdges = new ArrayList<Edge>(Math.max(numberOfCities - 1, 0));
+
+            for (int city = 0; city < numberOfCities; city++) {
+                if (parents[city] != -1) {
+                    mstEdges.add(new Edge(distanceMatrix.getDistance(city, parents[city]),
+                            Math.min(city, parents[city]), Math.max(city, parents[city])));
+                }
+            }
+
+            // O(n * log(n))
+            mstEdges.sort(Comparator.comparingInt(Edge::getWeight)
+                    .thenComparingInt(Edge::getSourceNode)
+                    .thenComparingInt(Edge::getDestinationNode));
 
-        for (var edge : edges) {
-            adjacencyList.putIfAbsent(edge.getSourceNode(), new ArrayList<>());
-            adjacencyList.putIfAbsent(edge.getDestinationNode(), new ArrayList<>());
-            adjacencyList.get(edge.getSourceNode()).add(edge.getDestinationNode());
+            return PreorderWalk.fromEdges(mstEdges, numberOfCities, 0);
         }
 
-        return adjacencyList;
-    }
+        if (edges == null) {
+            initEdges();
+        }
 
-    // O(n^2) aproximadamente, isso pois faz n iterações
-    // dado que o número de vértices da árvore geradora mínima é
-    // n - 1 e constrói listas de adjacência (O(n)) a partir das
-    // arestas presentes no conjunto e verificar por ciclo nessa
-    // lista de adjacência (O(|V| + |E|))
-    private List<Edge> getMSTEdgeSet() {
-        // O(n * log(n))
-        edges.sort(Comparator.comparing(e -> e.getWeight()));
+        var mstEdges = new KruskalMST(edges, numberOfCities).getEdgeSet();
 
-        var mstSet = new ArrayList<Edge>();
-        var edgesIterator = edges.iterator();
+        return PreorderWalk.fromEdges(mstEdges, numberOfCities, 0);
+    }
 
-        while (mstSet.size() < distanceMatrix.length - 1) {
-            var currentEdge = edgesIterator.next();
+    // O(n^2 * log(n)) influenciado pela construção da árvore geradora
+    // mínima, a pré-ordem da árvore é feita em O(n) e já é o caminho
+    // sem cidades repetidas, visitando os vizinhos de cada cidade na ordem
+    // das arestas. No Christofides o passeio é o circuito euleriano da
+    // árvore mais o emparelhamento das cidades de grau ímpar
+    private void fillPathApproximation() {
+        var walk = getMSTWalk();
+        var tour = tourConstruction == TourConstruction.CHRISTOFIDES
+                ? new Christofides(distanceMatrix, walk.getParents()).getTour()
+                : walk.getTour();
 
-            mstSet.add(currentEdge);
+        if (improvementStage != ImprovementStage.NONE) {
+            tour = improveWithLocalSearch(tour);
+        }
 
-            var adjacencyList = buildAdjacencyListFrom(mstSet); // O(n)
-            var cycleVerifier = new CycleVerifier(adjacencyList);
+        pathApproximation = new ArrayList<>(tour.length + 1);
 
-            // O(|V| + |E|)
-            if (cycleVerifier.hasCycle()) {
-                mstSet.remove(currentEdge);
-            }
+        for (var city : tour) {
+            pathApproximation.add(city);
         }
 
-        return mstSet;
+        pathApproximation.add(tour[0]);
     }
 
-    // O(n^2) influenciado pela construção da árvore geradora
-    // mínima, com operações O(n) para construir
-    // a lista de adjacência e remover filhos vazios dessa lista
-    private void fillPathApproximation() {
-        var edges = getMSTEdgeSet(); // O(n^2)
-        var adjacencyList = buildAdjacencyListFrom(edges); // O(n)
+    // O(n^2) para montar as listas de candidatos, a busca em si é quase
+    // linear por passada. O custo é o do tour da árvore menos o ganho dos
+    // movimentos aplicados, sem percorrer o caminho final de novo
+    // o tour continua começando pela mesma cidade
+    private int[] improveWithLocalSearch(int[] tour) {
+        var arrayTour = new ArrayTour(tour);
 
-        // O(n)
-        adjacencyList = adjacencyList.entrySet().stream()
-                .filter(e -> !e.getValue().isEmpty())
-                .collect(Collectors.toMap(k -> k.getKey(), v -> v.getValue()));
+        cost = arrayTour.cost(distanceMatrix);
 
-        // O(|V| + |E|)
-        pathApproximation = new DFSSearch(adjacencyList)
-                .getPath()
-                .stream()
-                .distinct()
-                .collect(Collectors.toList());
+        if (improvementStage == ImprovementStage.OR_OPT) {
+            cost -= new OrOpt(distanceMatrix).optimize(arrayTour);
+        } else {
+            cost -= new TwoOpt(distanceMatrix).optimize(arrayTour);
+        }
+
+        var improved = new int[tour.length];
+        var start = arrayTour.positionOf(tour[0]);
+
+        for (int i = 0; i < tour.length; i++) {
+            improved[i] = arrayTour.cityAt((start + i) % tour.length);
+        }
 
-        pathApproximation.add(pathApproximation.get(0));
+        return improved;
     }
 
     // O(n^2) no pior caso, que é caso tenha que encontrar o caminho
@@ -135,7 +173,7 @@ public class TSPHeuristic {
 
         while (pathIterator.hasNext()) {
             var next = pathIterator.next();
-            cost += distanceMatrix[current][next];
+            cost += distanceMatrix.getDistance(current, next);
             current = next;
         }
     }
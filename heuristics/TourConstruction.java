@@ -0,0 +1,10 @@
+package heuristics;
+
+public enum TourConstruction {
+    // pré-ordem da árvore geradora mínima, 2-aproximação
+    DOUBLE_TREE,
+
+    // árvore mais emparelhamento guloso das cidades de grau ímpar, circuito
+    // euleriano e atalhos
+    CHRISTOFIDES
+}
@@ -0,0 +1,150 @@
+package heuristics;
+
+import java.util.List;
+import java.util.Objects;
+
+import common.DistanceOracle;
+
+// Busca local 2-opt: troca as arestas (a, b) e (c, d) por (a, c) e (b, d)
+// enquanto isso diminuir o custo. Só são testados os candidatos mais
+// próximos de cada cidade e as cidades ficam numa fila de "don't-look bits":
+// uma cidade só volta a ser examinada quando uma aresta dela muda, então
+// cada passada é quase linear em vez de O(n^2)
+public class TwoOpt {
+    private final DistanceOracle distanceMatrix;
+    private final CandidateSet candidates;
+
+    public TwoOpt(DistanceOracle distanceMatrix) {
+        this(distanceMatrix, CandidateSet.cached(distanceMatrix, CandidateStrategy.NEAREST,
+                CandidateSet.DEFAULT_CANDIDATES_PER_CITY));
+    }
+
+    public TwoOpt(DistanceOracle distanceMatrix, CandidateSet candidates) {
+        this.distanceMatrix = Objects.requireNonNull(distanceMatrix);
+        this.candidates = Objects.requireNonNull(candidates);
+    }
+
+    // Melhora um tour no formato dos solvers (1-based, com a primeira cidade
+    // repetida no final) e devolve o resultado no mesmo formato
+    public List<Integer> improve(List<Integer> path) {
+        var tour = ArrayTour.fromClosedPath(path);
+        optimize(tour);
+        return tour.toClosedPath();
+    }
+
+    // Mesmo que o anterior para um tour 0-based sem a volta à primeira cidade
+    public int[] improve(int[] tour) {
+        var arrayTour = new ArrayTour(tour);
+        optimize(arrayTour);
+        return arrayTour.toArray();
+    }
+
+    // Aplica movimentos de melhoria até nenhuma cidade ter um movimento que
+    // diminua o custo e retorna o quanto o custo do tour diminuiu
+    public int optimize(ArrayTour tour) {
+        var numberOfCities = tour.size();
+
+        if (numberOfCities < 4) {
+            return 0;
+        }
+
+        var queue = new CityQueue(numberOfCities);
+        var gain = 0;
+
+        for (int position = 0; position < numberOfCities; position++) {
+            queue.push(tour.cityAt(position));
+        }
+
+        while (!queue.isEmpty()) {
+            var city = queue.pop();
+            var improvement = improveCity(tour, city, queue);
+
+            // a cidade volta para a fila porque ainda pode ter outro movimento
+            if (improvement > 0) {
+                gain += improvement;
+                queue.push(city);
+            }
+        }
+
+        return gain;
+    }
+
+    // O(k), procura o primeiro movimento que melhora o tour trocando uma das
+    // duas arestas da cidade a. Os candidatos estão em ordem crescente de
+    // distância, então a busca para assim que d(a, c) não for menor que a
+    // aresta removida, pois nenhum candidato seguinte pode ter ganho
+    int improveCity(ArrayTour tour, int a, CityQueue queue) {
+        for (int direction = 0; direction < 2; direction++) {
+            var b = direction == 0 ? tour.next(a) : tour.previous(a);
+            var removed = distanceMatrix.getDistance(a, b);
+
+            for (int i = 0; i < candidates.getCandidatesPerCity(); i++) {
+                var c = candidates.get(a, i);
+                var added = distanceMatrix.getDistance(a, c);
+
+                if (added >= removed) {
+                    break;
+                }
+
+                var d = direction == 0 ? tour.next(c) : tour.previous(c);
+
+                if (d == a) {
+                    continue;
+                }
+
+                var delta = added + distanceMatrix.getDistance(b, d) - removed - distanceMatrix.getDistance(c, d);
+
+                if (delta >= 0) {
+                    continue;
+                }
+
+                tour.twoOptMove(a, b, c, d);
+
+                queue.push(b);
+                queue.push(c);
+                queue.push(d);
+
+                return -delta;
+            }
+        }
+
+        return 0;
+    }
+
+    // Fila circular de cidades sem repetição, usada como os don't-look bits:
+    // uma cidade fora da fila está com o bit ligado
+    static final class CityQueue {
+        private final int[] cities;
+        private final boolean[] isQueued;
+        private int head;
+        private int size;
+
+        CityQueue(int numberOfCities) {
+            this.cities = new int[numberOfCities];
+            this.isQueued = new boolean[numberOfCities];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void push(int city) {
+            if (isQueued[city]) {
+                return;
+            }
+
+            isQueued[city] = true;
+            cities[(head + size++) % cities.length] = city;
+        }
+
+        int pop() {
+            var city = cities[head];
+
+            head = (head + 1) % cities.length;
+            size--;
+            isQueued[city] = false;
+
+            return city;
+        }
+    }
+}
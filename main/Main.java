@@ -1,47 +1,51 @@
 package main;
 
-import bruteForceApproach.TSPBruteForce;
+import common.CoordinateDistances;
 import common.DistanceMatrix;
-import dynamicProgrammingApproach.DynamicProgrammingApproach;
-import heuristics.TSPHeuristic;
+import heuristics.HeldKarpBound;
 
 public class Main {
+    private static final long DEFAULT_TIME_BUDGET_IN_MILLIS = 10_000;
+    private static final int MAXIMUM_NUMBER_OF_CITIES_TO_SHOW = 20;
+
+    // usage: Main [input file] [solver name or auto] [time budget in millis]
     public static void main(String[] args) throws Exception {
-        var infos = InputParser.parse("input1.txt");
-        var coordinates = infos.getAllCoordinates();
-        var distanceMatrix = new DistanceMatrix(coordinates);
-        var matrix = distanceMatrix.getMatrix();
+        var fileName = args.length > 0 ? args[0] : "input1.txt";
+        var solverName = args.length > 1 ? args[1] : SolverRegistry.AUTO;
+        var timeBudgetInMillis = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_TIME_BUDGET_IN_MILLIS;
 
-        System.out.println("DISTANCE MATRIX:");
-        distanceMatrix.show();
+        var infos = InputParser.parse(fileName);
+        var coordinates = infos.getAllCoordinates();
 
-        var bruteForceApproach = new TSPBruteForce(matrix);
-        var dynamicProgrammingApproach = new DynamicProgrammingApproach(matrix);
+        // distances are computed from the coordinates on demand, so a large
+        // input reaches the solver without an n x n matrix in memory
+        var distanceMatrix = new CoordinateDistances(coordinates);
 
-        var bruteForceMinimumCost = bruteForceApproach.getCustoMinimo();
-        var bruteForceTour = bruteForceApproach.getShortestPath();
+        if (coordinates.size() <= MAXIMUM_NUMBER_OF_CITIES_TO_SHOW) {
+            System.out.println("DISTANCE MATRIX:");
+            new DistanceMatrix(coordinates).show();
+        }
 
-        System.out.println("\nFrom BRUTE FORCE APPROACH:");
-        System.out.println("\ttour: " + bruteForceTour);
-        System.out.println("\ttour cost: " + bruteForceMinimumCost);
+        var registry = SolverRegistry.withDefaultSolvers();
+        var result = registry.solve(solverName, distanceMatrix, timeBudgetInMillis);
 
-        var dynamicProgrammingTour = dynamicProgrammingApproach.getTour();
-        var dynamicProgramminTourCost = dynamicProgrammingApproach.getTourCost();
+        System.out.println("\nFrom " + result.getSolverName() + ":");
+        System.out.println("\ttour: " + result.getTour());
+        System.out.println("\ttour cost: " + result.getCost());
+        System.out.println("\telapsed time: " + result.getElapsedTimeInNanos() / 1_000_000 + " ms");
+        System.out.println("\toptimal: " + result.isOptimal());
 
-        System.out.println("\nFrom DYNAMIC PROGRAMMING APPROACH:");
-        System.out.println("\ttour: " + dynamicProgrammingTour);
-        System.out.println("\ttour cost: " + dynamicProgramminTourCost);
+        // the lower bound only gets what is left of the budget
+        var remainingTimeInMillis = timeBudgetInMillis - result.getElapsedTimeInNanos() / 1_000_000;
 
-        var heuristic = new TSPHeuristic(matrix);
-        var heuristicPathApproximation = heuristic.getPathApproximation();
-        var heuristicPathApproximationCost = heuristic.getPathApproximationCost();
+        if (!result.isOptimal() && remainingTimeInMillis > 0) {
+            var lowerBound = new HeldKarpBound(distanceMatrix, result.getCost(), HeldKarpBound.DEFAULT_MAXIMUM_ITERATIONS,
+                    remainingTimeInMillis);
 
-        System.out.println("\nFrom HEURISTICS:");
-        System.out.println("\ttour: " + heuristicPathApproximation);
-        System.out.println("\ttour cost: " + heuristicPathApproximationCost);
+            System.out.println("\tHeld-Karp lower bound: " + lowerBound.getLowerBound());
+            System.out.printf("\tgap to the lower bound: %.2f%%%n", 100 * lowerBound.getGap(result.getCost()));
+        }
 
-        bruteForceApproach.escreverArquivo("bruteForceOutput.txt");
-        dynamicProgrammingApproach.tryStoreInfosInFile("dynamicProgrammingOutput.txt");
-        heuristic.tryStoreInfosInFile("heuristicOutput.txt");
+        result.tryStoreInfosInFile(result.getSolverName() + "Output.txt");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,184 @@
+package main;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import bruteForceApproach.TSPBruteForce;
+import common.DistanceOracle;
+import common.TSPResult;
+import common.TSPSolver;
+import dynamicProgrammingApproach.DynamicProgrammingApproach;
+import heuristics.CandidateSet;
+import heuristics.CandidateStrategy;
+import heuristics.GeneticAlgorithm;
+import heuristics.ImprovementStage;
+import heuristics.LateAcceptanceHillClimbing;
+import heuristics.LinKernighan;
+import heuristics.MSTStrategy;
+import heuristics.MultiStartSearch;
+import heuristics.TSPHeuristic;
+
+public class SolverRegistry {
+    public static final String AUTO = "auto";
+    public static final String BRUTE_FORCE = "bruteForce";
+    public static final String DYNAMIC_PROGRAMMING = "dynamicProgramming";
+    public static final String HEURISTIC = "heuristic";
+    public static final String LIN_KERNIGHAN = "linKernighan";
+    public static final String MULTI_START = "multiStart";
+    public static final String LATE_ACCEPTANCE = "lateAcceptance";
+    public static final String GENETIC = "genetic";
+
+    // branch and bound is picked up to this size when dynamic programming
+    // does not fit in the memory or in the budget, a few cities past the
+    // largest table. It stops at the deadline and then returns its best tour
+    // as not optimal
+    public static final int BRANCH_AND_BOUND_MAXIMUM_CITIES = DynamicProgrammingApproach.MAXIMUM_NUMBER_OF_CITIES + 4;
+
+    // conservative rate of the Held-Karp inner loop, measured at about 6e8
+    private static final double DYNAMIC_PROGRAMMING_STEPS_PER_SECOND = 2e8;
+
+    private final Map<String, TSPSolver> solvers;
+
+    public SolverRegistry() {
+        this.solvers = new LinkedHashMap<>();
+    }
+
+    public static SolverRegistry withDefaultSolvers() {
+        var registry = new SolverRegistry();
+
+        registry.register(BRUTE_FORCE, (distanceMatrix, timeBudgetInMillis) -> {
+            var start = System.nanoTime();
+            var solver = new TSPBruteForce(distanceMatrix, timeBudgetInMillis);
+            var cost = solver.getCustoMinimo();
+
+            return new TSPResult(BRUTE_FORCE, solver.getShortestPath(), cost, System.nanoTime() - start,
+                    solver.isOtimo());
+        });
+
+        registry.register(DYNAMIC_PROGRAMMING, (distanceMatrix, timeBudgetInMillis) -> {
+            var start = System.nanoTime();
+            var solver = new DynamicProgrammingApproach(distanceMatrix);
+            var tour = solver.getTour();
+
+            return new TSPResult(DYNAMIC_PROGRAMMING, tour, solver.getTourCost(), System.nanoTime() - start, true);
+        });
+
+        registry.register(HEURISTIC, (distanceMatrix, timeBudgetInMillis) -> {
+            var start = System.nanoTime();
+            var solver = new TSPHeuristic(distanceMatrix, MSTStrategy.PRIM, ImprovementStage.OR_OPT);
+            var tour = solver.getPathApproximation();
+
+            return new TSPResult(HEURISTIC, tour, solver.getPathApproximationCost(), System.nanoTime() - start,
+                    false);
+        });
+
+        registry.register(LIN_KERNIGHAN, (distanceMatrix, timeBudgetInMillis) -> {
+            var start = System.nanoTime();
+            var solver = new LinKernighan(distanceMatrix, timeBudgetInMillis);
+            var tour = solver.getTour();
+
+            return new TSPResult(LIN_KERNIGHAN, tour, solver.getTourCost(), System.nanoTime() - start, false);
+        });
+
+        registry.register(MULTI_START, (distanceMatrix, timeBudgetInMillis) -> {
+            var start = System.nanoTime();
+            var solver = new MultiStartSearch(distanceMatrix, timeBudgetInMillis);
+            var tour = solver.getTour();
+
+            return new TSPResult(MULTI_START, tour, solver.getTourCost(), System.nanoTime() - start, false);
+        });
+
+        registry.register(LATE_ACCEPTANCE, (distanceMatrix, timeBudgetInMillis) -> {
+            var start = System.nanoTime();
+            var solver = new LateAcceptanceHillClimbing(distanceMatrix, timeBudgetInMillis);
+            var tour = solver.getTour();
+
+            return new TSPResult(LATE_ACCEPTANCE, tour, solver.getTourCost(), System.nanoTime() - start, false);
+        });
+
+        registry.register(GENETIC, (distanceMatrix, timeBudgetInMillis) -> {
+            var start = System.nanoTime();
+            var candidates = CandidateSet.cached(distanceMatrix, CandidateStrategy.NEAREST,
+                    CandidateSet.DEFAULT_CANDIDATES_PER_CITY);
+            var solver = new GeneticAlgorithm(distanceMatrix, candidates, GeneticAlgorithm.DEFAULT_POPULATION_SIZE,
+                    GeneticAlgorithm.DEFAULT_NUMBER_OF_GENERATIONS, timeBudgetInMillis, 42);
+            var tour = solver.getTour();
+
+            return new TSPResult(GENETIC, tour, solver.getTourCost(), System.nanoTime() - start, false);
+        });
+
+        return registry;
+    }
+
+    public void register(String name, TSPSolver solver) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(solver);
+
+        if (name.equals(AUTO)) {
+            throw new IllegalArgumentException("The name " + AUTO + " is reserved");
+        }
+
+        solvers.put(name, solver);
+    }
+
+    public Set<String> getNames() {
+        return Collections.unmodifiableSet(solvers.keySet());
+    }
+
+    public TSPSolver get(String name) {
+        var solver = solvers.get(name);
+
+        if (solver == null) {
+            throw new IllegalArgumentException("Unknown solver " + name + ", the solvers are " + getNames());
+        }
+
+        return solver;
+    }
+
+    // exact dynamic programming while its table fits in the memory and its
+    // estimated time fits in the budget, branch and bound with the deadline
+    // for the small instances left, whether the table is too big or too slow,
+    // and heuristics with local search for everything else
+    public String choose(DistanceOracle distanceMatrix, long availableMemoryInBytes, long timeBudgetInMillis) {
+        var numberOfCities = distanceMatrix.getNumberOfCities();
+        var fitsInMemory = numberOfCities <= DynamicProgrammingApproach.MAXIMUM_NUMBER_OF_CITIES
+                && DynamicProgrammingApproach.projectMemoryInBytes(distanceMatrix) <= availableMemoryInBytes;
+
+        if (fitsInMemory && solvers.containsKey(DYNAMIC_PROGRAMMING)
+                && estimateDynamicProgrammingMillis(numberOfCities) <= timeBudgetInMillis) {
+            return DYNAMIC_PROGRAMMING;
+        }
+
+        if (numberOfCities <= BRANCH_AND_BOUND_MAXIMUM_CITIES && solvers.containsKey(BRUTE_FORCE)) {
+            return BRUTE_FORCE;
+        }
+
+        return solvers.containsKey(LIN_KERNIGHAN) ? LIN_KERNIGHAN : HEURISTIC;
+    }
+
+    private static double estimateDynamicProgrammingMillis(int numberOfCities) {
+        var steps = (double) numberOfCities * numberOfCities * Math.pow(2, Math.max(numberOfCities - 1, 0));
+
+        return 1000 * steps / DYNAMIC_PROGRAMMING_STEPS_PER_SECOND;
+    }
+
+    public TSPResult solve(String name, DistanceOracle distanceMatrix, long timeBudgetInMillis) {
+        Objects.requireNonNull(distanceMatrix);
+
+        if (timeBudgetInMillis < 0) {
+            throw new IllegalArgumentException("The time budget must not be negative");
+        }
+
+        if (AUTO.equals(name)) {
+            var runtime = Runtime.getRuntime();
+            var availableMemory = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+
+            name = choose(distanceMatrix, availableMemory, timeBudgetInMillis);
+        }
+
+        return get(name).solve(distanceMatrix, timeBudgetInMillis);
+    }
+}
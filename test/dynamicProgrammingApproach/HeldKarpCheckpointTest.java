@@ -0,0 +1,130 @@
+package dynamicProgrammingApproach;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Simulates two crashes in a row, each one in the middle of an append, and
+// checks that the second resume still sees every layer completed before it.
+// java dynamicProgrammingApproach.HeldKarpCheckpointTest
+public class HeldKarpCheckpointTest {
+    private static final int NUMBER_OF_CITIES = 10;
+    private static final int CITY_STRIDE = NUMBER_OF_CITIES - 1;
+    private static final int NUMBER_OF_ENTRIES = (1 << (NUMBER_OF_CITIES - 1)) * CITY_STRIDE;
+
+    public static void main(String[] args) throws Exception {
+        var file = Files.createTempFile("held-karp", ".checkpoint");
+
+        try {
+            resumesAfterTwoCrashesInARow(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        System.out.println("HeldKarpCheckpointTest passed");
+    }
+
+    private static void resumesAfterTwoCrashesInARow(Path file) throws IOException {
+        // first run: layers 2 to 4 reach the disk, layer 5 is cut
+        var firstRun = newCheckpoint(file, filledTable(), filledParents());
+
+        firstRun.start();
+        firstRun.append(2, 3);
+        firstRun.append(4, 4);
+        crashDuringAppend(firstRun, file, 5);
+
+        // first resume: layer 5 reaches the disk, layer 6 is cut
+        var firstResume = newCheckpoint(file, filledTable(), filledParents());
+
+        resume(firstResume, file);
+        check(firstResume.getLastLoadedSubsetSize() == 4, "the first resume loads up to layer 4");
+        firstResume.append(5, 5);
+        crashDuringAppend(firstResume, file, 6);
+
+        // second resume, on empty tables
+        var table = CostTable.allocate(NUMBER_OF_ENTRIES, true);
+        var parents = new byte[NUMBER_OF_ENTRIES];
+        var secondResume = newCheckpoint(file, table, parents);
+        var completeLength = resume(secondResume, file);
+
+        check(secondResume.getLastLoadedSubsetSize() == 5, "the second resume loads up to layer 5");
+        check(Files.size(file) == completeLength, "the cut layer is removed from the file");
+
+        for (int index = 0; index < NUMBER_OF_ENTRIES; index++) {
+            var others = index / CITY_STRIDE;
+            var cityOffset = index % CITY_STRIDE;
+            var subsetSize = Integer.bitCount(others);
+
+            // the cut layer 6 is partly read and then filled again by the solver
+            if (subsetSize >= 2 && subsetSize <= 5 && (others & (1 << cityOffset)) != 0) {
+                check(table.get(index) == costOf(index), "cost of state " + index);
+                check(parents[index] == parentOf(index), "parent of state " + index);
+            }
+        }
+    }
+
+    // same steps as DynamicProgrammingApproach.startOrResumeCheckpoint
+    private static long resume(HeldKarpCheckpoint checkpoint, Path file) throws IOException {
+        var completeLength = checkpoint.load();
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(completeLength);
+        }
+
+        return completeLength;
+    }
+
+    // writes the layer and then drops its second half, as if the process had
+    // died before the whole buffer reached the disk
+    private static void crashDuringAppend(HeldKarpCheckpoint checkpoint, Path file, int subsetSize)
+            throws IOException {
+        var lengthBefore = Files.size(file);
+
+        checkpoint.append(subsetSize, subsetSize);
+
+        try (var channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(lengthBefore + (Files.size(file) - lengthBefore) / 2);
+        }
+    }
+
+    private static HeldKarpCheckpoint newCheckpoint(Path file, CostTable table, byte[] parents) {
+        return new HeldKarpCheckpoint(file, NUMBER_OF_CITIES, CITY_STRIDE, 42, true, table, parents,
+                new Combinations(NUMBER_OF_CITIES - 1));
+    }
+
+    private static CostTable filledTable() {
+        var table = CostTable.allocate(NUMBER_OF_ENTRIES, true);
+
+        for (int index = 0; index < NUMBER_OF_ENTRIES; index++) {
+            table.set(index, costOf(index));
+        }
+
+        return table;
+    }
+
+    private static byte[] filledParents() {
+        var parents = new byte[NUMBER_OF_ENTRIES];
+
+        for (int index = 0; index < NUMBER_OF_ENTRIES; index++) {
+            parents[index] = parentOf(index);
+        }
+
+        return parents;
+    }
+
+    private static int costOf(int index) {
+        return (index * 31 + 7) & 0xffff;
+    }
+
+    private static byte parentOf(int index) {
+        return (byte) (index % 9);
+    }
+
+    private static void check(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+}